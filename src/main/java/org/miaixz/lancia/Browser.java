@@ -31,20 +31,28 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import org.miaixz.bus.core.lang.Assert;
 import org.miaixz.bus.core.lang.exception.InternalException;
 import org.miaixz.bus.core.xyz.CollKit;
 import org.miaixz.bus.core.xyz.StringKit;
+import org.miaixz.bus.logger.Logger;
 import org.miaixz.lancia.kernel.*;
 import org.miaixz.lancia.kernel.browser.Context;
 import org.miaixz.lancia.kernel.page.Target;
 import org.miaixz.lancia.kernel.page.TargetInfo;
 import org.miaixz.lancia.option.BrowserContextOptions;
+import org.miaixz.lancia.option.data.AttachPolicy;
 import org.miaixz.lancia.option.data.Debug;
 import org.miaixz.lancia.option.data.GetVersionResponse;
 import org.miaixz.lancia.option.data.Viewport;
@@ -71,19 +79,25 @@ public class Browser extends Emitter<BrowserEvent> {
     private final Connection connection;
     private final Runnable closeCallback;
     private final Context defaultContext;
-    private final Map<String, Context> contexts = new HashMap<>();
+    private final Map<String, Context> contexts = new ConcurrentHashMap<>();
     private final TargetManager targetManager;
     private final Consumer<Target> onAttachedToTarget = (target) -> {
-        if (target.isTargetExposed() && target.initializedSubject.blockingGet().equals(InitializationStatus.SUCCESS)) {
-            this.emit(BrowserEvent.TargetCreated, target);
-            target.browserContext().emit(BrowserContextEvent.TargetCreated, target);
+        if (!target.isTargetExposed()) {
+            return;
         }
+        // 初始化完成后再通知，不能在事件线程中阻塞等待
+        target.initializedSubject.subscribe(status -> {
+            if (InitializationStatus.SUCCESS.equals(status)) {
+                this.emit(BrowserEvent.TargetCreated, target);
+                target.browserContext().emit(BrowserContextEvent.TargetCreated, target);
+            }
+        }, e -> Logger.error("lancia error:", e));
     };
     private final Consumer<Object> emitDisconnected = (ignore) -> this.emit(BrowserEvent.Disconnected, null);
     private final Consumer<Target> onDetachedFromTarget = (target) -> {
         target.initializedSubject.onSuccess(InitializationStatus.ABORTED);
         target.isClosedSubject.onSuccess(true);
-        if (target.isTargetExposed() && target.initializedSubject.blockingGet().equals(InitializationStatus.SUCCESS)) {
+        if (target.isTargetExposed() && InitializationStatus.SUCCESS.equals(target.initializedSubject.getValue())) {
             this.emit(BrowserEvent.TargetDestroyed, target);
             target.browserContext().emit(BrowserContextEvent.TargetDestroyed, target);
         }
@@ -97,10 +111,26 @@ public class Browser extends Emitter<BrowserEvent> {
     };
     Function<Target, Boolean> targetFilterCallback;
     Function<Target, Boolean> isPageTargetCallback;
+    /**
+     * 新页面是否使用精简模式
+     */
+    private volatile boolean leanPages;
+    /**
+     * 是否是无头浏览器，第一次使用时从版本信息中取得
+     */
+    private volatile Boolean headless;
 
     public Browser(String product, Connection connection, List<String> contextIds, Viewport viewport, Process process,
             Runnable closeCallback, Function<Target, Boolean> targetFilterCallback,
             Function<Target, Boolean> isPageTargetCallback, boolean waitForInitiallyDiscoveredTargets) {
+        this(product, connection, contextIds, viewport, process, closeCallback, targetFilterCallback,
+                isPageTargetCallback, waitForInitiallyDiscoveredTargets, null);
+    }
+
+    public Browser(String product, Connection connection, List<String> contextIds, Viewport viewport, Process process,
+            Runnable closeCallback, Function<Target, Boolean> targetFilterCallback,
+            Function<Target, Boolean> isPageTargetCallback, boolean waitForInitiallyDiscoveredTargets,
+            AttachPolicy attachPolicy) {
         super();
         product = StringKit.isEmpty(product) ? "chrome" : product;
         this.defaultViewport = viewport;
@@ -120,7 +150,7 @@ public class Browser extends Emitter<BrowserEvent> {
             throw new InternalException("Not Support firefox");
         } else {
             this.targetManager = new ChromeTargetManager(connection, this.createTarget(), this.targetFilterCallback,
-                    waitForInitiallyDiscoveredTargets);
+                    waitForInitiallyDiscoveredTargets, attachPolicy);
         }
         this.defaultContext = new Context(connection, this, "");
         if (CollKit.isNotEmpty(contextIds)) {
@@ -134,8 +164,16 @@ public class Browser extends Emitter<BrowserEvent> {
             boolean acceptInsecureCerts, Viewport defaultViewport, Process process, Runnable closeCallback,
             Function<Target, Boolean> targetFilterCallback, Function<Target, Boolean> IsPageTargetCallback,
             boolean waitForInitiallyDiscoveredTargets) {
+        return create(product, connection, contextIds, acceptInsecureCerts, defaultViewport, process, closeCallback,
+                targetFilterCallback, IsPageTargetCallback, waitForInitiallyDiscoveredTargets, null);
+    }
+
+    public static Browser create(String product, Connection connection, List<String> contextIds,
+            boolean acceptInsecureCerts, Viewport defaultViewport, Process process, Runnable closeCallback,
+            Function<Target, Boolean> targetFilterCallback, Function<Target, Boolean> IsPageTargetCallback,
+            boolean waitForInitiallyDiscoveredTargets, AttachPolicy attachPolicy) {
         Browser browser = new Browser(product, connection, contextIds, defaultViewport, process, closeCallback,
-                targetFilterCallback, IsPageTargetCallback, waitForInitiallyDiscoveredTargets);
+                targetFilterCallback, IsPageTargetCallback, waitForInitiallyDiscoveredTargets, attachPolicy);
         if (acceptInsecureCerts) {
             Map<String, Object> params = new HashMap<>();
             params.put("ignore", true);
@@ -152,6 +190,15 @@ public class Browser extends Emitter<BrowserEvent> {
         this.targetManager.on(TargetManagerType.TargetChanged, this.onTargetChanged);
         this.targetManager.on(TargetManagerType.TargetDiscovered, this.onTargetDiscovered);
         this.targetManager.initialize();
+        try {
+            this.targetManager.initialized().get(Builder.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalException(e);
+        } catch (ExecutionException | java.util.concurrent.TimeoutException e) {
+            // 剩余的目标会继续异步挂载
+            Logger.warn("Initially discovered targets are not attached in time: {}", e.getMessage());
+        }
     }
 
     private void detach() {
@@ -162,6 +209,14 @@ public class Browser extends Emitter<BrowserEvent> {
         this.targetManager.off(TargetManagerType.TargetDiscovered, this.onTargetDiscovered);
     }
 
+    public boolean isLeanPages() {
+        return this.leanPages;
+    }
+
+    public void setLeanPages(boolean leanPages) {
+        this.leanPages = leanPages;
+    }
+
     public Process process() {
         return this.process;
     }
@@ -253,6 +308,10 @@ public class Browser extends Emitter<BrowserEvent> {
         return this.defaultContext.newPage();
     }
 
+    public List<Page> newPages(int count) {
+        return this.defaultContext.newPages(count);
+    }
+
     public Page createPageInContext(String contextId) {
         Map<String, Object> params = new HashMap<>();
         params.put("url", "about:blank");
@@ -260,23 +319,96 @@ public class Browser extends Emitter<BrowserEvent> {
             params.put("browserContextId", contextId);
         }
         JsonNode result = this.connection.send("Target.createTarget", params);
-        if (result != null) {
-            String targetId = result.get(Builder.MESSAGE_TARGETID_PROPERTY).asText();
-            Target target = this.waitForTarget(t -> t.getTargetId().equals(targetId), Builder.DEFAULT_TIMEOUT);
-            if (target == null) {
-                throw new InternalException("Missing target for page (id = " + targetId + ")");
-            }
-            if (!target.initializedSubject.blockingGet().equals(InitializationStatus.SUCCESS)) {
-                throw new InternalException("Failed to create target for page (id =" + targetId + ")");
-            }
-            Page page = target.page();
-            if (page == null) {
-                throw new InternalException("Failed to create a page for context (id = " + contextId + ")");
-            }
-            return page;
-        } else {
+        if (result == null) {
             throw new InternalException("Failed to create target for page (id =" + contextId + ")");
         }
+        String targetId = result.get(Builder.MESSAGE_TARGETID_PROPERTY).asText();
+        Target target;
+        try {
+            target = this.targetFuture(targetId).get(Builder.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalException(e);
+        } catch (ExecutionException e) {
+            throw new InternalException("Failed to create target for page (id =" + targetId + ")", e.getCause());
+        } catch (java.util.concurrent.TimeoutException e) {
+            throw new InternalException("Missing target for page (id = " + targetId + ")");
+        }
+        Page page = target.page();
+        if (page == null) {
+            throw new InternalException("Failed to create a page for context (id = " + contextId + ")");
+        }
+        return page;
+    }
+
+    /**
+     * 在指定的上下文中并发创建多个页面，所有 Target.createTarget 一起发出，各页面的初始化并行进行
+     *
+     * @param contextId 上下文id
+     * @param count     页面数量
+     * @return 创建好的页面，顺序与请求顺序一致
+     */
+    public List<Page> createPagesInContext(String contextId, int count) {
+        Assert.isTrue(count > 0, "count must be positive");
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(count, 16), runnable -> {
+            Thread thread = new Thread(runnable, "lancia-new-page");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<CompletableFuture<String>> targetIds = new ArrayList<>(count);
+        List<CompletableFuture<Page>> futures = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                Map<String, Object> params = new HashMap<>();
+                params.put("url", "about:blank");
+                if (StringKit.isNotEmpty(contextId)) {
+                    params.put("browserContextId", contextId);
+                }
+                CompletableFuture<String> targetId = this.connection.sendAsync("Target.createTarget", params)
+                        .thenApply(result -> result.get(Builder.MESSAGE_TARGETID_PROPERTY).asText());
+                targetIds.add(targetId);
+                futures.add(targetId.thenCompose(this::targetFuture).thenApplyAsync(Target::page, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(Builder.DEFAULT_TIMEOUT,
+                    TimeUnit.MILLISECONDS);
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.closeCreated(targetIds);
+            throw new InternalException(e);
+        } catch (ExecutionException | java.util.concurrent.TimeoutException e) {
+            this.closeCreated(targetIds);
+            throw new InternalException("Failed to create pages in context (id = " + contextId + ")",
+                    e instanceof ExecutionException ? e.getCause() : e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 按目标id关闭已经创建的标签页，不依赖页面的初始化，初始化晚于超时或者被拒绝时标签页也会被关闭
+     */
+    private void closeCreated(List<CompletableFuture<String>> targetIds) {
+        for (CompletableFuture<String> targetId : targetIds) {
+            targetId.thenAccept(id -> {
+                Map<String, Object> params = new HashMap<>();
+                params.put("targetId", id);
+                this.connection.sendAsync("Target.closeTarget", params).exceptionally(e -> {
+                    Logger.error("lancia error:", e);
+                    return null;
+                });
+            });
+        }
+    }
+
+    /**
+     * 目标挂载并初始化成功后完成，不会阻塞事件线程
+     *
+     * @param targetId 目标id
+     * @return 目标
+     */
+    public CompletableFuture<Target> targetFuture(String targetId) {
+        return this.targetManager.targetFuture(targetId);
     }
 
     public Target target() {
@@ -291,7 +423,7 @@ public class Browser extends Emitter<BrowserEvent> {
     public List<Target> targets() {
         return this.targetManager.getAvailableTargets().values().stream()
                 .filter(target -> target.isTargetExposed()
-                        && target.initializedSubject.blockingGet().equals(InitializationStatus.SUCCESS))
+                        && InitializationStatus.SUCCESS.equals(target.initializedSubject.getValue()))
                 .collect(Collectors.toList());
     }
 
@@ -300,6 +432,18 @@ public class Browser extends Emitter<BrowserEvent> {
         return version.getProduct();
     }
 
+    /**
+     * 是否是无头浏览器，结果会被缓存
+     *
+     * @return true表示无头浏览器
+     */
+    public boolean isHeadless() {
+        if (this.headless == null) {
+            this.headless = this.version().startsWith("HeadlessChrome");
+        }
+        return this.headless;
+    }
+
     public String userAgent() {
         GetVersionResponse version = this.getVersion();
         return version.getUserAgent();
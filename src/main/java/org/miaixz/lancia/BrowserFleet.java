@@ -0,0 +1,378 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.miaixz.bus.core.lang.Assert;
+import org.miaixz.bus.core.lang.exception.InternalException;
+import org.miaixz.bus.core.xyz.StringKit;
+import org.miaixz.bus.logger.Logger;
+import org.miaixz.lancia.kernel.page.Target;
+import org.miaixz.lancia.option.ConnectOptions;
+import org.miaixz.lancia.worker.enums.BrowserEvent;
+import org.miaixz.lancia.worker.enums.TargetType;
+
+/**
+ * 浏览器集群，把多个本地或远程的浏览器实例当作一个整体使用
+ * <p>
+ * 集群记录每个浏览器当前打开的页面数量以及协议往返耗时，{@link #newPage()} 总是在负载最低的浏览器上创建页面。 某个浏览器断开连接或者创建页面失败后会被暂时摘除，
+ * 创建页面时自动转移到其他浏览器，间隔 retryInterval 毫秒后重新尝试
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class BrowserFleet implements AutoCloseable {
+
+    /**
+     * 协议耗时的平滑系数，越大越偏向最近一次的测量值
+     */
+    private static final double LATENCY_WEIGHT = 0.3;
+
+    private final List<Endpoint> endpoints = new CopyOnWriteArrayList<>();
+    private final long retryInterval;
+    private final ScheduledExecutorService scheduler;
+
+    public BrowserFleet() {
+        this(10_000, 5_000);
+    }
+
+    /**
+     * 创建浏览器集群
+     *
+     * @param probeInterval 探测每个浏览器协议耗时的间隔，单位毫秒，小于等于0时不主动探测
+     * @param retryInterval 断开的浏览器重新连接的间隔，单位毫秒
+     */
+    public BrowserFleet(long probeInterval, long retryInterval) {
+        this.retryInterval = retryInterval;
+        if (probeInterval > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "lancia-fleet-probe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::probe, probeInterval, probeInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * 添加一个浏览器，ws:// 开头的视为 browserWSEndpoint，否则视为 browserURL，比如 http://127.0.0.1:9222
+     *
+     * @param browserWSEndpointOrURL 浏览器地址
+     * @return 集群中的节点
+     */
+    public Endpoint add(String browserWSEndpointOrURL) {
+        Assert.isTrue(StringKit.isNotEmpty(browserWSEndpointOrURL), "browserWSEndpointOrURL must not be empty");
+        ConnectOptions options = new ConnectOptions();
+        if (browserWSEndpointOrURL.startsWith("ws")) {
+            options.setBrowserWSEndpoint(browserWSEndpointOrURL);
+        } else {
+            options.setBrowserURL(browserWSEndpointOrURL);
+        }
+        return this.add(options);
+    }
+
+    /**
+     * 添加一个浏览器，首次创建页面时才会建立连接
+     *
+     * @param options 连接选项
+     * @return 集群中的节点
+     */
+    public Endpoint add(ConnectOptions options) {
+        Endpoint endpoint = new Endpoint(options, null);
+        this.endpoints.add(endpoint);
+        return endpoint;
+    }
+
+    /**
+     * 添加一个已经启动或连接的浏览器，比如由 {@link Puppeteer#launch()} 启动的本地浏览器
+     *
+     * @param browser 浏览器实例
+     * @return 集群中的节点
+     */
+    public Endpoint add(Browser browser) {
+        ConnectOptions options = new ConnectOptions();
+        options.setBrowserWSEndpoint(browser.wsEndpoint());
+        Endpoint endpoint = new Endpoint(options, browser);
+        this.endpoints.add(endpoint);
+        return endpoint;
+    }
+
+    /**
+     * 从集群中移除节点并断开连接
+     *
+     * @param endpoint 集群中的节点
+     */
+    public void remove(Endpoint endpoint) {
+        if (this.endpoints.remove(endpoint)) {
+            endpoint.disconnect();
+        }
+    }
+
+    public List<Endpoint> endpoints() {
+        return new ArrayList<>(this.endpoints);
+    }
+
+    /**
+     * 在负载最低的浏览器上创建页面，失败时依次尝试其他浏览器
+     *
+     * @return 新页面
+     */
+    public Page newPage() {
+        List<Endpoint> candidates = new ArrayList<>(this.endpoints);
+        candidates.sort(Comparator.comparingDouble(Endpoint::score));
+        RuntimeException error = null;
+        for (Endpoint endpoint : candidates) {
+            if (!endpoint.isAvailable(this.retryInterval)) {
+                continue;
+            }
+            try {
+                return endpoint.newPage();
+            } catch (RuntimeException e) {
+                Logger.warn("Create page on {} failed, try next browser: {}", endpoint.name(), e.getMessage());
+                endpoint.markDown();
+                error = e;
+            }
+        }
+        InternalException exception = new InternalException("No browser in the fleet is available");
+        if (error != null) {
+            exception.addSuppressed(error);
+        }
+        throw exception;
+    }
+
+    /**
+     * 测量所有已连接浏览器的协议往返耗时
+     */
+    public void probe() {
+        for (Endpoint endpoint : this.endpoints) {
+            try {
+                endpoint.probe();
+            } catch (Exception e) {
+                Logger.warn("Probe browser {} failed: {}", endpoint.name(), e.getMessage());
+                endpoint.markDown();
+            }
+        }
+    }
+
+    /**
+     * 断开所有浏览器的连接，不会关闭浏览器进程
+     */
+    @Override
+    public void close() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+        for (Endpoint endpoint : this.endpoints) {
+            endpoint.disconnect();
+        }
+        this.endpoints.clear();
+    }
+
+    /**
+     * 集群中的一个浏览器节点
+     */
+    public static class Endpoint {
+
+        private final ConnectOptions options;
+        /**
+         * 正在创建、还没有出现在浏览器目标列表中的页面
+         */
+        private final AtomicInteger creating = new AtomicInteger();
+        private volatile Browser browser;
+        /**
+         * 探测得到的协议往返耗时，用于负载评分
+         */
+        private volatile double latency;
+        /**
+         * 创建页面的耗时，和协议往返耗时分开统计
+         */
+        private volatile double pageLatency;
+        private volatile boolean down;
+        private volatile long downSince;
+        private volatile int failures;
+
+        Endpoint(ConnectOptions options, Browser browser) {
+            this.options = options;
+            if (browser != null) {
+                this.attach(browser);
+            }
+        }
+
+        public String name() {
+            return StringKit.isNotEmpty(this.options.getBrowserWSEndpoint()) ? this.options.getBrowserWSEndpoint()
+                    : this.options.getBrowserURL();
+        }
+
+        /**
+         * 当前打开的页面数量，包括不是由集群创建的页面
+         *
+         * @return 页面数量
+         */
+        public int pages() {
+            Browser browser = this.browser;
+            int count = this.creating.get();
+            if (browser == null) {
+                return count;
+            }
+            for (Target target : browser.targets()) {
+                if (TargetType.PAGE.equals(target.type())) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * 平滑后的协议往返耗时，单位毫秒
+         *
+         * @return 耗时
+         */
+        public double latency() {
+            return this.latency;
+        }
+
+        /**
+         * 平滑后的创建页面耗时，单位毫秒
+         *
+         * @return 耗时
+         */
+        public double pageLatency() {
+            return this.pageLatency;
+        }
+
+        /**
+         * 连续失败的次数
+         *
+         * @return 失败次数
+         */
+        public int failures() {
+            return this.failures;
+        }
+
+        public Browser browser() {
+            return this.browser;
+        }
+
+        public boolean connected() {
+            Browser browser = this.browser;
+            return browser != null && browser.connected();
+        }
+
+        double score() {
+            double score = (this.pages() + 1) * Math.max(this.latency, 1);
+            // 断开或者失败过的节点排在最后，只在其他节点都不可用时重试
+            return this.connected() && !this.down ? score : score + Double.MAX_VALUE / 2;
+        }
+
+        boolean isAvailable(long retryInterval) {
+            if (this.down) {
+                return System.currentTimeMillis() - this.downSince >= retryInterval;
+            }
+            return true;
+        }
+
+        Page newPage() {
+            Browser browser = this.connect();
+            long start = System.nanoTime();
+            this.creating.incrementAndGet();
+            Page page;
+            try {
+                page = browser.newPage();
+            } finally {
+                this.creating.decrementAndGet();
+            }
+            this.pageLatency = smooth(this.pageLatency, System.nanoTime() - start);
+            this.failures = 0;
+            this.down = false;
+            return page;
+        }
+
+        void probe() {
+            Browser browser = this.browser;
+            if (browser == null || !browser.connected()) {
+                return;
+            }
+            long start = System.nanoTime();
+            browser.version();
+            this.latency = smooth(this.latency, System.nanoTime() - start);
+        }
+
+        synchronized Browser connect() {
+            Browser browser = this.browser;
+            if (browser != null && browser.connected()) {
+                return browser;
+            }
+            browser = Puppeteer.connect(this.options);
+            this.attach(browser);
+            return browser;
+        }
+
+        synchronized void disconnect() {
+            Browser browser = this.browser;
+            this.browser = null;
+            if (browser != null && browser.connected()) {
+                browser.disconnect();
+            }
+        }
+
+        void markDown() {
+            this.failures++;
+            this.downSince = System.currentTimeMillis();
+            this.down = true;
+        }
+
+        private void attach(Browser browser) {
+            this.browser = browser;
+            Consumer<Object> onDisconnected = ignore -> {
+                if (this.browser == browser) {
+                    this.browser = null;
+                    this.markDown();
+                }
+            };
+            browser.once(BrowserEvent.Disconnected, onDisconnected);
+        }
+
+        private static double smooth(double average, long nanos) {
+            double millis = nanos / 1_000_000.0;
+            return average == 0 ? millis : average * (1 - LATENCY_WEIGHT) + millis * LATENCY_WEIGHT;
+        }
+
+    }
+
+}
@@ -35,14 +35,19 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.miaixz.bus.core.lang.Assert;
+import org.miaixz.bus.core.lang.exception.InternalException;
 import org.miaixz.bus.core.xyz.FileKit;
-import org.miaixz.bus.core.xyz.IoKit;
 import org.miaixz.bus.core.xyz.StringKit;
 import org.miaixz.bus.health.Platform;
 import org.miaixz.bus.logger.Logger;
@@ -115,6 +120,10 @@ public class Builder {
      * 读取流中的数据的buffer size
      */
     public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+    /**
+     * 读取协议流时每次 IO.read 的默认大小
+     */
+    public static final int DEFAULT_STREAM_READ_SIZE = 1024 * 1024;
     /**
      * 存放下载浏览器脚本的临时目录
      */
@@ -235,6 +244,10 @@ public class Builder {
     public static final String MAC_X64 = "mac-x64";
     public static final String WIN32 = "win32";
     public static final String WIN64 = "win64";
+    /**
+     * 只包含旧版无头模式的chrome，启动更快，占用内存更少
+     */
+    public static final String CHROME_HEADLESS_SHELL = "chrome-headless-shell";
 
     public static String createProtocolError(JsonNode node) {
         JsonNode methodNode = node.get(MESSAGE_METHOD_PROPERTY);
@@ -260,6 +273,57 @@ public class Builder {
         return Paths.get(root, args).toString();
     }
 
+    /**
+     * 每个对象在独立的线程中并行关闭，总耗时不超过给定的超时时间，超时未关闭的对象强制结束其浏览器进程
+     *
+     * @param targets 要关闭的对象
+     * @param closer  关闭方法
+     * @param process 对象对应的浏览器进程，可以返回 null
+     * @param timeout 超时时间，单位毫秒
+     * @param <T>     对象类型
+     * @return 超时仍未关闭的对象数量
+     */
+    public static <T> int closeInParallel(List<T> targets, Consumer<T> closer, Function<T, Process> process,
+            long timeout) {
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(targets.size());
+        for (T target : targets) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    closer.accept(target);
+                    future.complete(null);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }, "lancia-browser-close");
+            thread.setDaemon(true);
+            thread.start();
+            futures.add(future);
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | java.util.concurrent.TimeoutException e) {
+            Logger.warn("Not all browsers were closed within {} ms: {}", timeout, e.getMessage());
+        }
+        int pending = 0;
+        for (int i = 0; i < targets.size(); i++) {
+            if (futures.get(i).isDone()) {
+                continue;
+            }
+            Process alive = process.apply(targets.get(i));
+            if (alive != null && alive.isAlive()) {
+                alive.destroyForcibly();
+            }
+            pending++;
+        }
+        return pending;
+    }
+
     /**
      * read stream from protocol : example for tracing file
      *
@@ -275,96 +339,110 @@ public class Builder {
         if (isSync) {
             return ForkJoinPool.commonPool().submit(() -> {
                 try {
-                    printPDF(client, handler, path);
+                    readProtocolStream(client, handler, path, DEFAULT_STREAM_READ_SIZE);
                 } catch (IOException e) {
                     Logger.error("Method readProtocolStream error", e);
                 }
             });
         } else {
-            return printPDF(client, handler, path);
+            return readProtocolStream(client, handler, path, DEFAULT_STREAM_READ_SIZE);
         }
     }
 
-    private static byte[] printPDF(CDPSession client, String handler, String path) throws IOException {
-        boolean eof = false;
-        File file = null;
-        BufferedOutputStream writer = null;
-        BufferedInputStream reader = null;
+    /**
+     * 读取协议流，指定了路径时同时写入文件
+     *
+     * @param client CDPSession
+     * @param handle 流的句柄
+     * @param path   文件存放的路径，可以为空
+     * @param size   每次 IO.read 读取的最大字节数，不大于0时由浏览器决定
+     * @return 流的全部字节
+     * @throws IOException 操作文件的异常
+     */
+    public static byte[] readProtocolStream(CDPSession client, String handle, String path, int size)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (StringKit.isEmpty(path)) {
+            readProtocolStream(client, handle, bytes, size);
+            return bytes.toByteArray();
+        }
+        File file = new File(path);
+        FileKit.createTempFile(file.getParentFile());
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            readProtocolStream(client, handle, new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    bytes.write(b);
+                }
 
-        if (StringKit.isNotEmpty(path)) {
-            file = new File(path);
-            FileKit.createTempFile(file.getParentFile());
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    bytes.write(b, off, len);
+                }
+            }, size);
         }
+        return bytes.toByteArray();
+    }
 
+    /**
+     * 读取协议流并写入输出流，写入当前块的同时下一次 IO.read 已经发出，内存占用和流的大小无关
+     *
+     * @param client CDPSession
+     * @param handle 流的句柄
+     * @param out    输出流，不会被关闭
+     * @param size   每次 IO.read 读取的最大字节数
+     * @throws IOException 写入失败
+     */
+    public static void readProtocolStream(CDPSession client, String handle, OutputStream out, int size)
+            throws IOException {
         Map<String, Object> params = new HashMap<>();
-        params.put("handle", handler);
+        params.put("handle", handle);
+        if (size > 0) {
+            params.put("size", size);
+        }
         try {
-
-            if (file != null) {
-                FileOutputStream fileOutputStream = new FileOutputStream(file);
-                writer = new BufferedOutputStream(fileOutputStream);
-            }
-            byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-            byte[] bytes;
-            List<byte[]> bufs = new ArrayList<>();
-            int byteLength = 0;
-
+            // 同一个句柄上的读取按发送顺序执行，所以可以预先发出下一次读取
+            CompletableFuture<JsonNode> pending = client.sendAsync("IO.read", params);
+            boolean eof = false;
             while (!eof) {
-                JsonNode response = client.send("IO.read", params);
+                JsonNode response = await(pending);
                 JsonNode eofNode = response.get(MESSAGE_EOF_PROPERTY);
-                JsonNode base64EncodedNode = response.get(MESSAGE_BASE64ENCODED_PROPERTY);
+                eof = eofNode == null || eofNode.asBoolean();
+                pending = eof ? null : client.sendAsync("IO.read", params);
                 JsonNode dataNode = response.get(MESSAGE_STREAM_DATA_PROPERTY);
                 String dataText;
-
                 if (dataNode != null && StringKit.isNotEmpty(dataText = dataNode.asText())) {
-                    try {
-                        if (base64EncodedNode != null && base64EncodedNode.asBoolean()) {
-                            bytes = Base64.getDecoder().decode(dataText);
-                        } else {
-                            bytes = dataNode.asText().getBytes();
-                        }
-                        bufs.add(bytes);
-                        byteLength += bytes.length;
-                        // 转成二进制流 io
-                        if (file != null) {
-                            ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
-                            reader = new BufferedInputStream(byteArrayInputStream);
-                            int read;
-                            while ((read = reader.read(buffer, 0, DEFAULT_BUFFER_SIZE)) != -1) {
-                                writer.write(buffer, 0, read);
-                                writer.flush();
-                            }
-                        }
-                    } finally {
-                        IoKit.closeQuietly(reader);
+                    JsonNode base64EncodedNode = response.get(MESSAGE_BASE64ENCODED_PROPERTY);
+                    if (base64EncodedNode != null && base64EncodedNode.asBoolean()) {
+                        out.write(Base64.getDecoder().decode(dataText));
+                    } else {
+                        out.write(dataText.getBytes());
                     }
                 }
-                eof = eofNode == null || eofNode.asBoolean();
             }
-            client.send("IO.close", params);
-            return getBytes(bufs, byteLength);
+            out.flush();
         } finally {
-            IoKit.closeQuietly(writer);
-            IoKit.closeQuietly(reader);
+            client.send("IO.close", params);
         }
     }
 
     /**
-     * 多个字节数组转成一个字节数组
-     * 
-     * @param bufs       数组集合
-     * @param byteLength 数组总长度
-     * @return 总数组
+     * 等待一个异步命令完成，失败时抛出原始异常
+     *
+     * @param future 异步命令
+     * @return 命令的结果
      */
-    private static byte[] getBytes(List<byte[]> bufs, int byteLength) {
-        // 返回字节数组
-        byte[] resultBuf = new byte[byteLength];
-        int destPos = 0;
-        for (byte[] buf : bufs) {
-            System.arraycopy(buf, 0, resultBuf, destPos, buf.length);
-            destPos += buf.length;
+    public static JsonNode await(CompletableFuture<JsonNode> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new InternalException(e.getCause());
         }
-        return resultBuf;
     }
 
     public static String getExceptionMessage(ExceptionDetails exceptionDetails) {
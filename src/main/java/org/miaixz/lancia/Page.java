@@ -31,9 +31,13 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.text.MessageFormat;
@@ -76,6 +80,7 @@ import org.miaixz.lancia.nimble.runtime.RemoteObject;
 import org.miaixz.lancia.nimble.runtime.StackTrace;
 import org.miaixz.lancia.nimble.webAuthn.Credentials;
 import org.miaixz.lancia.option.*;
+import org.miaixz.lancia.option.data.BlockingRules;
 import org.miaixz.lancia.option.data.Clip;
 import org.miaixz.lancia.option.data.PDFMargin;
 import org.miaixz.lancia.option.data.Viewport;
@@ -128,7 +133,19 @@ public class Page extends Emitter<PageEvent> {
     private final SingleSubject<Exception> sessionCloseSubject = SingleSubject.create();
     private boolean closed;
     private boolean javascriptEnabled;
+    /**
+     * 精简模式，Network、Log、Performance 域只在有监听器或者接口需要时开启
+     */
+    private boolean lean;
+    /**
+     * 精简模式下已经开启的域
+     */
+    private final Set<String> enabledDomains = ConcurrentHashMap.newKeySet();
     private Viewport viewport;
+    /**
+     * 当前的屏幕录制
+     */
+    private Screencast screencast;
 
     public Page(CDPSession client, Target target) {
         super();
@@ -162,7 +179,7 @@ public class Page extends Emitter<PageEvent> {
 
         Map<NetworkManagerType, Consumer<?>> networkManagerHandlers = Collections.unmodifiableMap(new HashMap<>() {
             {
-                put(NetworkManagerType.Request,
+                put(NetworkManagerType.UserRequest,
                         ((Consumer<Request>) (request) -> Page.this.emit(PageEvent.REQUEST, request)));
                 put(NetworkManagerType.RequestServedFromCache,
                         ((Consumer<Request>) (request) -> Page.this.emit(PageEvent.REQUESTSERVEDFROMCACHE, request)));
@@ -177,8 +194,10 @@ public class Page extends Emitter<PageEvent> {
         networkManagerHandlers.forEach((key, value) -> this.frameManager.networkManager().on(key, value));
         Map<CDPSessionEvent, Consumer<?>> sessionHandlers = Collections.unmodifiableMap(new HashMap<>() {
             {
-                put(CDPSessionEvent.CDPSession_Disconnected,
-                        ((ignore) -> sessionCloseSubject.onSuccess(new InternalException("Target closed"))));
+                put(CDPSessionEvent.CDPSession_Disconnected, ((ignore) -> {
+                    Page.this.disposeScreencast();
+                    sessionCloseSubject.onSuccess(new InternalException("Target closed"));
+                }));
                 put(CDPSessionEvent.Page_domContentEventFired,
                         ((ignore) -> Page.this.emit(PageEvent.DOMCONTENTLOADED, null)));
                 put(CDPSessionEvent.Page_loadEventFired, ((ignore) -> Page.this.emit(PageEvent.LOAD, null)));
@@ -215,8 +234,25 @@ public class Page extends Emitter<PageEvent> {
      * @return 页面实例
      */
     public static Page create(CDPSession client, Target target, Viewport viewport) {
+        return create(client, target, viewport, false);
+    }
+
+    /**
+     * 创建一个page对象
+     *
+     * @param client   与页面通讯的客户端
+     * @param target   目标
+     * @param viewport 视图
+     * @param lean     是否使用精简模式
+     * @return 页面实例
+     */
+    public static Page create(CDPSession client, Target target, Viewport viewport, boolean lean) {
         Page page = new Page(client, target);
+        page.lean = lean;
         page.initialize();
+        if (target.browserContext() != null) {
+            target.browserContext().applyNetworkSettings(page);
+        }
         if (viewport != null) {
             page.setViewport(viewport);
         }
@@ -560,7 +596,8 @@ public class Page extends Emitter<PageEvent> {
     public void close(boolean runBeforeUnload) throws InterruptedException {
         Assert.isTrue(this.client.getConnection() != null,
                 "Protocol error: Connection closed. Most likely the page has been closed.");
-
+        // 页面关闭后录制的线程和监听不能留下
+        this.disposeScreencast();
         if (runBeforeUnload) {
             this.client.send("Page.close", null, null, false);
         } else {
@@ -573,113 +610,225 @@ public class Page extends Emitter<PageEvent> {
 
     /**
      * 截图 备注 在OS X上 截图需要至少1/6秒
+     * <p>
+     * 无头浏览器不需要激活页面，多个页面可以同时截图；有界面的浏览器仍然按上下文串行，并先把页面切到前台
      *
      * @param options 截图选项
      * @return 图片base64的字节
      */
     public String screenshot(ScreenshotOptions options) {
-        synchronized (this.browserContext()) {// 一个上下文只能有一个截图操作
+        if (this.browser().isHeadless()) {
+            return this.screenshotInternal(options);
+        }
+        synchronized (this.browserContext()) {// 有界面时一个上下文只能有一个截图操作
             this.bringToFront();
-            if (StringKit.isEmpty(options.getType()) && StringKit.isNotEmpty(options.getPath())) {
-                String filePath = options.getPath();
-                String extension = filePath.substring(filePath.lastIndexOf('.') + 1).toLowerCase();
-                switch (extension) {
-                case "png":
-                    options.setType("png");
-                    break;
-                case "jpeg":
-                case "jpg":
-                    options.setType("jpeg");
-                    break;
-                case "webp":
-                    options.setType("webp");
-                    break;
-                }
+            return this.screenshotInternal(options);
+        }
+    }
+
+    private String screenshotInternal(ScreenshotOptions options) {
+        if (StringKit.isEmpty(options.getType()) && StringKit.isNotEmpty(options.getPath())) {
+            String filePath = options.getPath();
+            String extension = filePath.substring(filePath.lastIndexOf('.') + 1).toLowerCase();
+            switch (extension) {
+            case "png":
+                options.setType("png");
+                break;
+            case "jpeg":
+            case "jpg":
+                options.setType("jpeg");
+                break;
+            case "webp":
+                options.setType("webp");
+                break;
+            }
+        }
+        if (options.getQuality() != 0) {
+            Assert.isTrue(options.getQuality() > 0 && options.getQuality() <= 100,
+                    "Expected quality (" + options.getQuality() + ") to be between 0 and 100 ,inclusive).");
+            Assert.isTrue(
+                    StringKit.isNotEmpty(options.getType()) && Arrays.asList("jpeg", "webp").contains(options.getType()),
+                    StringKit.isEmpty(options.getType()) ? "png"
+                            : options.getType() + "screenshots do not support quality.");
+        }
+        if (options.getClip() != null) {
+            Assert.isTrue(options.getClip().getWidth() > 0, "'width' in 'clip' must be positive.");
+            Assert.isTrue(options.getClip().getHeight() > 0, "'height' in 'clip' must be positive.");
+            Assert.isTrue(!options.isFullPage(), "'clip' and 'fullPage' are mutually exclusive");
+            options.setClip(roundRectangle(normalizeRectangle(options.getClip())));
+        } else if (!options.isFullPage()) {
+            options.setCaptureBeyondViewport(false);
+        }
+        try {
+            if (options.isFullPage() && options.getTileHeight() > 0) {
+                return this.tiledScreenshot(options);
             }
-            if (options.getQuality() != 0) {
-                Assert.isTrue(options.getQuality() > 0 && options.getQuality() <= 100,
-                        "Expected quality (" + options.getQuality() + ") to be between 0 and 100 ,inclusive).");
-                Assert.isTrue(
-                        StringKit.isNotEmpty(options.getType())
-                                && Arrays.asList("jpeg", "webp").contains(options.getType()),
-                        StringKit.isEmpty(options.getType()) ? "png"
-                                : options.getType() + "screenshots do not support quality.");
+            if (options.isFullPage() && !options.isCaptureBeyondViewport()) {
+                // 需要改变视口大小，同一个页面上只能串行
+                synchronized (this) {
+                    return this.fullPageByResize(options);
+                }
             }
+            return this._screenshot(options);
+        } catch (Exception e) {
+            Logger.error("_screenshot error: ", e);
+        }
+        return Normal.EMPTY;
+    }
 
-            if (options.getClip() != null) {
-                Assert.isTrue(options.getClip().getWidth() > 0, "'width' in 'clip' must be positive.");
-                Assert.isTrue(options.getClip().getHeight() > 0, "'height' in 'clip' must be positive.");
+    /**
+     * 开始屏幕录制，每一帧解码后交给消费者，一个页面同时只能有一个录制
+     *
+     * @param options  录制选项
+     * @param consumer 帧的消费者，autoAck 为false时需要调用 {@link ScreencastFrame#ack()} 才会收到下一帧
+     * @return 屏幕录制
+     */
+    public synchronized Screencast startScreencast(ScreencastOptions options, Consumer<ScreencastFrame> consumer) {
+        Assert.isTrue(this.screencast == null || !this.screencast.isRecording(),
+                "Screencast is already started for this page.");
+        Screencast screencast = new Screencast(this.client, options, consumer);
+        screencast.start();
+        this.screencast = screencast;
+        return screencast;
+    }
+
+    /**
+     * 停止屏幕录制
+     */
+    public synchronized void stopScreencast() {
+        if (this.screencast != null) {
+            this.screencast.stop();
+            this.screencast = null;
+        }
+    }
+
+    private synchronized void disposeScreencast() {
+        if (this.screencast != null) {
+            this.screencast.dispose();
+            this.screencast = null;
+        }
+    }
+
+    /**
+     * 分块截取整个页面，各块流式拼接后写入输出流，适合特别长的页面
+     *
+     * @param options 截图选项，type 只支持 png，tileHeight 不大于0时使用默认块高
+     * @param out     输出流，不会被关闭
+     * @throws IOException 写入失败
+     */
+    public void screenshot(ScreenshotOptions options, OutputStream out) throws IOException {
+        if (this.browser().isHeadless()) {
+            this.screenshotTiled(options, out);
+            return;
+        }
+        synchronized (this.browserContext()) {// 有界面时一个上下文只能有一个截图操作
+            this.bringToFront();
+            this.screenshotTiled(options, out);
+        }
+    }
+
+    private void screenshotTiled(ScreenshotOptions options, OutputStream out) throws IOException {
+        JsonNode contentSize = this.layoutMetrics().get("cssContentSize");
+        if (options.isOmitBackground()) {
+            this.emulationManager.setTransparentBackgroundColor();
+        }
+        try {
+            new TiledScreenshot(this.client).capture(options, contentSize.get("width").asDouble(),
+                    contentSize.get("height").asDouble(), out);
+        } finally {
+            if (options.isOmitBackground()) {
+                this.emulationManager.resetDefaultBackgroundColor();
             }
-            Viewport viewport = null;
-            try {
-                if (options.getClip() != null) {
-                    // If `captureBeyondViewport` is `false`, then we set the viewport to
-                    // capture the full page. Note this may be affected by on-page CSS and
-                    // JavaScript.
-                    Assert.isTrue(!options.isFullPage(), "'clip' and 'fullPage' are mutually exclusive");
-                    options.setClip(roundRectangle(normalizeRectangle(options.getClip())));
-                } else {
-                    if (options.isFullPage()) {
-                        if (!options.isCaptureBeyondViewport()) {
-                            LinkedHashMap<String, Integer> scrollDimensions = (LinkedHashMap<String, Integer>) this
-                                    .mainFrame()
-                                    .evaluate("() => {\n" + "              const element = document.documentElement;\n"
-                                            + "              return {\n"
-                                            + "                width: element.scrollWidth,\n"
-                                            + "                height: element.scrollHeight,\n" + "              };\n"
-                                            + "            }", null);
-
-                            viewport = this.viewport();
-                            viewport.setWidth(scrollDimensions.get("width"));
-                            viewport.setHeight(scrollDimensions.get("height"));
-                            this.setViewport(viewport);
-                        }
-                    } else {
-                        options.setCaptureBeyondViewport(false);
-                    }
-                }
-                return this._screenshot(options);
-            } catch (Exception e) {
-                Logger.error("_screenshot error: ", e);
-            } finally {
-                if (viewport != null) {
-                    this.setViewport(viewport);
-                }
+        }
+    }
+
+    /**
+     * 分块整页截图，指定了 path 时直接写入文件并返回空字符串，否则返回base64
+     */
+    private String tiledScreenshot(ScreenshotOptions options) throws IOException {
+        if (StringKit.isNotEmpty(options.getPath())) {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(options.getPath())))) {
+                this.screenshotTiled(options, out);
             }
             return Normal.EMPTY;
         }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.screenshotTiled(options, out);
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
 
+    /**
+     * 把视口临时调整为整个页面的大小后截图，截图完成后恢复缓存的视口
+     */
+    private String fullPageByResize(ScreenshotOptions options) {
+        JsonNode contentSize = this.layoutMetrics().get("cssContentSize");
+        Viewport original = this.viewport();
+        Viewport viewport = original == null ? new Viewport() : Viewport.builder().width(original.getWidth())
+                .height(original.getHeight()).deviceScaleFactor(original.getDeviceScaleFactor())
+                .isMobile(original.isMobile()).hasTouch(original.isHasTouch()).isLandscape(original.isLandscape())
+                .build();
+        viewport.setWidth((int) Math.ceil(contentSize.get("width").asDouble()));
+        viewport.setHeight((int) Math.ceil(contentSize.get("height").asDouble()));
+        this.setViewport(viewport);
+        try {
+            return this._screenshot(options);
+        } finally {
+            // 没有设置过视口时清除覆盖，恢复窗口原来的大小
+            this.setViewport(original);
+        }
+    }
+
+    /**
+     * 一次取得页面内容大小和可视视口，替代多次 evaluate
+     *
+     * @return Page.getLayoutMetrics 的结果
+     */
+    private JsonNode layoutMetrics() {
+        return this.client.send("Page.getLayoutMetrics");
     }
 
     private String _screenshot(ScreenshotOptions options) {
         Map<String, Object> params = new HashMap<>();
         try {
-            if (options.isOptimizeForSpeed() && ("png".equals(options.getType()) || "webp".equals(options.getType()))) {
+            if (options.isOmitBackground() && ("png".equals(options.getType()) || "webp".equals(options.getType()))) {
                 this.emulationManager.setTransparentBackgroundColor();
             }
-            if (options.getClip() != null && !options.isCaptureBeyondViewport()) {
-                LinkedHashMap<String, Integer> viewportNode = (LinkedHashMap<String, Integer>) this.mainFrame()
-                        .evaluate("() => {\n" + "          const {\n" + "            height,\n"
-                                + "            pageLeft: x,\n" + "            pageTop: y,\n" + "            width,\n"
-                                + "          } = window.visualViewport;\n" + "          return {x, y, height, width};\n"
-                                + "        }", null);
-                Clip clip = getIntersectionRect(options.getClip(), viewportNode);
-                params.put("format", options.getType());
-                params.put("optimizeForSpeed", options.isOmitBackground());
+            params.put("format", StringKit.isEmpty(options.getType()) ? "png" : options.getType());
+            if (options.getQuality() > 0) {
                 params.put("quality", Math.round(options.getQuality()));
+            }
+            params.put("optimizeForSpeed", options.isOptimizeForSpeed());
+            params.put("fromSurface", options.isFromSurface());
+            params.put("captureBeyondViewport", options.isCaptureBeyondViewport());
+            if (options.getClip() != null) {
+                Clip clip = options.getClip();
+                if (!options.isCaptureBeyondViewport()) {
+                    JsonNode visualViewport = this.layoutMetrics().get("cssVisualViewport");
+                    clip = getIntersectionRect(clip, visualViewport);
+                }
+                if (clip.getScale() <= 0) {
+                    clip.setScale(1);
+                }
                 params.put("clip", clip);
+            } else if (options.isFullPage() && options.isCaptureBeyondViewport()) {
+                JsonNode contentSize = this.layoutMetrics().get("cssContentSize");
+                params.put("clip", new Clip(0, 0, Math.ceil(contentSize.get("width").asDouble()),
+                        Math.ceil(contentSize.get("height").asDouble()), 1));
             }
             JsonNode result = this.client.send("Page.captureScreenshot", params);
             String data = result.get("data").asText();
-            byte[] buffer = Base64.getDecoder().decode(data);
             if (StringKit.isNotEmpty(options.getPath())) {
-                Files.write(Paths.get(options.getPath()), buffer, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                byte[] buffer = Base64.getDecoder().decode(data);
+                Files.write(Paths.get(options.getPath()), buffer, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
             }
             return data;
         } catch (Exception var) {
             Logger.error("_screenshot error: ", var);
         } finally {
-            this.emulationManager.resetDefaultBackgroundColor();
+            if (options.isOmitBackground()) {
+                this.emulationManager.resetDefaultBackgroundColor();
+            }
         }
         return null;
     }
@@ -688,13 +837,16 @@ public class Page extends Emitter<PageEvent> {
      * @see <a href=
      *      "https://w3c.github.io/webdriver-bidi/#rectangle-intersection">href="https://w3c.github.io/webdriver-bidi/#rectangle-intersection</a>
      */
-    private Clip getIntersectionRect(Clip clip, LinkedHashMap<String, Integer> viewport) {
-        double x = Math.max(clip.getX(), viewport.get("x"));
-        double y = Math.max(clip.getY(), viewport.get("y"));
-        return new Clip(x, y,
-                Math.max(Math.min(clip.getX() + clip.getWidth(), viewport.get("x") + viewport.get("width")) - x, 0),
-                Math.max(Math.min(clip.getY() + clip.getHeight(), viewport.get("y") + viewport.get("height")) - y, 0),
-                1);
+    private Clip getIntersectionRect(Clip clip, JsonNode visualViewport) {
+        double viewportX = visualViewport.get("pageX").asDouble();
+        double viewportY = visualViewport.get("pageY").asDouble();
+        double viewportWidth = visualViewport.get("clientWidth").asDouble();
+        double viewportHeight = visualViewport.get("clientHeight").asDouble();
+        double x = Math.max(clip.getX(), viewportX);
+        double y = Math.max(clip.getY(), viewportY);
+        return new Clip(x, y, Math.max(Math.min(clip.getX() + clip.getWidth(), viewportX + viewportWidth) - x, 0),
+                Math.max(Math.min(clip.getY() + clip.getHeight(), viewportY + viewportHeight) - y, 0),
+                clip.getScale() > 0 ? clip.getScale() : 1);
     }
 
     private Clip roundRectangle(Clip clip) {
@@ -957,6 +1109,57 @@ public class Page extends Emitter<PageEvent> {
         this.frameManager.networkManager().setRequestInterception(value);
     }
 
+    /**
+     * 启用请求拦截器，并指定拦截处理的线程数、队列上限和决策期限。请求事件在工作线程中分发，期限内没有处理的请求会被放行
+     *
+     * @param value   是否启用请求拦截器
+     * @param options 拦截处理选项
+     */
+    public void setRequestInterception(boolean value, InterceptionOptions options) {
+        this.frameManager.networkManager().setInterceptionOptions(options);
+        this.frameManager.networkManager().setRequestInterception(value);
+    }
+
+    /**
+     * 设置资源屏蔽规则，比如屏蔽图片、字体和统计脚本。规则在浏览器端执行，不需要判断放行规则的请求不会暂停
+     *
+     * @param rules 屏蔽规则，传入 null 清除规则
+     */
+    public void setBlockingRules(BlockingRules rules) {
+        this.frameManager.networkManager().setBlockingRules(rules);
+    }
+
+    /**
+     * 记录页面的网络请求和响应，之后可以用 {@link #replayNetwork(NetworkArchive)} 回放
+     *
+     * @param recorder 网络记录器
+     */
+    public void recordNetwork(NetworkRecorder recorder) {
+        recorder.attach(this.frameManager.networkManager());
+    }
+
+    /**
+     * 从网络记录回放响应，匹配的请求直接由记录响应，没有匹配时按选项继续访问网络或者失败
+     *
+     * @param archive 网络记录，传入 null 停止回放
+     */
+    public void replayNetwork(NetworkArchive archive) {
+        this.frameManager.networkManager().setNetworkArchive(archive);
+    }
+
+    /**
+     * 使用页面间共享的静态资源缓存，可以跨越上下文复用样式、脚本、字体和图片
+     *
+     * @param assetCache 静态资源缓存
+     */
+    public void useAssetCache(SharedAssetCache assetCache) {
+        assetCache.attach(this.frameManager.networkManager());
+    }
+
+    public NetworkManager networkManager() {
+        return this.frameManager.networkManager();
+    }
+
     private void setTransparentBackgroundColor() {
         Map<String, Object> params = new HashMap<>();
         Map<String, Integer> colorMap = new HashMap<>();
@@ -1050,6 +1253,11 @@ public class Page extends Emitter<PageEvent> {
             // @see https://github.com/puppeteer/puppeteer/issues/3865
             return;
         }
+        if (this.lean && this.listenerCount(PageEvent.CONSOLE) == 0) {
+            // 没有监听器时不创建句柄，一次性丢弃控制台保留的参数对象
+            this.client.send("Runtime.discardConsoleEntries", null, null, false);
+            return;
+        }
         ExecutionContext context = this.frameManager.executionContextById(event.getExecutionContextId());
         List<JSHandle> values = new ArrayList<>();
         if (CollKit.isNotEmpty(event.getArgs())) {
@@ -1062,6 +1270,9 @@ public class Page extends Emitter<PageEvent> {
     }
 
     private void onBindingCalled(BindingCalledEvent event) {
+        if (!this.pageBindings.containsKey(event.getName())) {
+            return;
+        }
         String payloadStr = event.getPayload();
         Payload payload;
         try {
@@ -1109,15 +1320,67 @@ public class Page extends Emitter<PageEvent> {
     }
 
     protected void initialize() {
-        frameManager.initialize();
+        // 与 frameManager 的初始化并行发出，最后统一等待结果
+        List<CompletableFuture<JsonNode>> pending = new ArrayList<>();
         Map<String, Object> params = new HashMap<>();
         params.put("autoAttach", true);
         params.put("waitForDebuggerOnStart", false);
         params.put("flatten", true);
-        this.client.send("Target.setAutoAttach", params);
-        params.clear();
-        this.client.send("Performance.enable", params);
-        this.client.send("Log.enable", params);
+        pending.add(this.client.sendAsync("Target.setAutoAttach", params));
+        if (!this.lean) {
+            pending.add(this.client.sendAsync("Performance.enable", new HashMap<>()));
+            pending.add(this.client.sendAsync("Log.enable", new HashMap<>()));
+        }
+        frameManager.initialize();
+        pending.forEach(Builder::await);
+        this.updateLeanDomains();
+    }
+
+    @Override
+    public Emitter<PageEvent> on(PageEvent eventType, Consumer<?> listener) {
+        super.on(eventType, listener);
+        this.updateLeanDomains();
+        return this;
+    }
+
+    @Override
+    public void off(PageEvent eventType, Consumer<?> listener) {
+        super.off(eventType, listener);
+        this.updateLeanDomains();
+    }
+
+    /**
+     * 精简模式下根据监听器开启或者关闭域，可能在事件线程中调用，所以只发送不等待
+     */
+    private synchronized void updateLeanDomains() {
+        if (!this.lean || this.closed || this.client == null || this.frameManager == null) {
+            return;
+        }
+        boolean network = this.listenerCount(PageEvent.REQUEST) > 0 || this.listenerCount(PageEvent.RESPONSE) > 0
+                || this.listenerCount(PageEvent.REQUESTFAILED) > 0 || this.listenerCount(PageEvent.REQUESTFINISHED) > 0
+                || this.listenerCount(PageEvent.REQUESTSERVEDFROMCACHE) > 0;
+        if (network) {
+            this.frameManager.networkManager().enable();
+        } else {
+            this.frameManager.networkManager().disableIfIdle();
+        }
+        this.toggleDomain("Log", this.listenerCount(PageEvent.CONSOLE) > 0);
+        this.toggleDomain("Performance", this.listenerCount(PageEvent.METRICS) > 0);
+    }
+
+    private void toggleDomain(String domain, boolean enable) {
+        boolean changed = enable ? this.enabledDomains.add(domain) : this.enabledDomains.remove(domain);
+        if (!changed) {
+            return;
+        }
+        this.client.sendAsync(domain + (enable ? ".enable" : ".disable"), null).exceptionally(e -> {
+            Logger.error("lancia error:", e);
+            return null;
+        });
+    }
+
+    public boolean isLean() {
+        return this.lean;
     }
 
     private void addConsoleMessage(String type, List<JSHandle> args, StackTrace stackTrace) {
@@ -1488,6 +1751,9 @@ public class Page extends Emitter<PageEvent> {
      * @throws InvocationTargetException 异常
      */
     public Metrics metrics() throws IllegalAccessException, IntrospectionException, InvocationTargetException {
+        if (this.lean && this.enabledDomains.add("Performance")) {
+            this.client.send("Performance.enable");
+        }
         JsonNode responseNode = this.client.send("Performance.getMetrics");
         List<Metric> metrics = new ArrayList<>();
         Iterator<JsonNode> elements = responseNode.get("metrics").elements();
@@ -1530,6 +1796,46 @@ public class Page extends Emitter<PageEvent> {
      * @return pdf文件的字节数组数据
      */
     public byte[] pdf(PDFOptions options, LengthUnit lengthUnit) {
+        String handle = this.printToPDF(options, lengthUnit);
+        try {
+            return Builder.readProtocolStream(this.client, handle, options.getPath(), options.getReadSize());
+        } catch (IOException e) {
+            throw new InternalException(e);
+        }
+    }
+
+    /**
+     * 生成当前页面的pdf并流式写入输出流，内存占用和pdf的大小无关
+     *
+     * @param options 选项，path 会被忽略
+     * @param out     输出流，不会被关闭
+     * @throws IOException 写入失败
+     */
+    public void pdf(PDFOptions options, OutputStream out) throws IOException {
+        String handle = this.printToPDF(options, LengthUnit.IN);
+        Builder.readProtocolStream(this.client, handle, out, options.getReadSize());
+    }
+
+    /**
+     * 生成当前页面的pdf并流式写入文件
+     *
+     * @param options 选项，path 会被忽略
+     * @param path    文件路径
+     * @throws IOException 写入失败
+     */
+    public void pdf(PDFOptions options, Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 256 * 1024)) {
+            this.pdf(options, out);
+        }
+    }
+
+    /**
+     * 调用 Page.printToPDF 并返回流的句柄
+     */
+    private String printToPDF(PDFOptions options, LengthUnit lengthUnit) {
         double paperWidth = 8.5;
         double paperHeight = 11;
         if (options.getFormat() != null) {
@@ -1591,19 +1897,22 @@ public class Page extends Emitter<PageEvent> {
         params.put("generateTaggedPDF", options.isTagged());
         params.put("generateDocumentOutline", options.isOutline());
 
-        JsonNode result = Single.fromCallable(() -> this.client.send("Page.printToPDF", params))
-                .timeout(options.getTimeout(), TimeUnit.MILLISECONDS).blockingGet();
+        JsonNode result;
+        try {
+            result = Single.fromCallable(() -> this.client.send("Page.printToPDF", params))
+                    .timeout(options.getTimeout(), TimeUnit.MILLISECONDS).blockingGet();
+        } finally {
+            if (options.isOmitBackground()) {
+                this.emulationManager.resetDefaultBackgroundColor();
+            }
+        }
         if (result == null) {
             throw new InternalException("Page.printToPDF no response");
         }
         JsonNode handle = result.get(Builder.MESSAGE_STREAM_PROPERTY);
         Assert.isTrue(handle != null,
                 "Page.printToPDF result has no stream handle. Please check your chrome version. result=" + result);
-        try {
-            return (byte[]) Builder.readProtocolStream(this.client, handle.asText(), options.getPath(), false);
-        } catch (IOException e) {
-            throw new InternalException(e);
-        }
+        return handle.asText();
     }
 
     /**
@@ -1752,6 +2061,63 @@ public class Page extends Emitter<PageEvent> {
         return this.mainFrame().evaluate(pageFunction, args);
     }
 
+    /**
+     * 预编译一个页面函数，在同一个执行上下文中反复调用时不再传输和解析函数源码
+     *
+     * @param pageFunction 函数源码
+     * @return 页面函数
+     */
+    public PageFunction compile(String pageFunction) {
+        return new PageFunction(pageFunction);
+    }
+
+    /**
+     * 在主 frame 中调用预编译的页面函数
+     *
+     * @param function 页面函数
+     * @param args     函数参数
+     * @return 函数的返回值
+     */
+    public Object evaluate(PageFunction function, List<Object> args) {
+        return function.evaluate(this.mainFrame().executionContext(), args);
+    }
+
+    /**
+     * 在当前线程上打开句柄作用域，作用域内创建的句柄在关闭时一次性释放
+     *
+     * @return 句柄作用域，需要关闭
+     */
+    public HandleScope openHandleScope() {
+        return HandleScope.open();
+    }
+
+    /**
+     * 按描述一次性提取页面数据，只有一次协议往返，不创建任何 ElementHandle
+     *
+     * @param extraction 提取描述
+     * @return 每个匹配元素对应一行
+     */
+    public List<Map<String, Object>> extract(Extraction extraction) {
+        return this.mainFrame().extract(extraction);
+    }
+
+    /**
+     * 按描述一次性提取页面数据并转换成指定类型，字段名和类型的属性名对应
+     *
+     * @param extraction 提取描述
+     * @param type       每一行的类型，可以是普通类或者 record
+     * @param <T>        行的类型
+     * @return 每个匹配元素对应一行
+     */
+    public <T> List<T> extract(Extraction extraction, Class<T> type) {
+        List<Map<String, Object>> rows = this.extract(extraction);
+        List<T> result = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            result.add(Builder.OBJECTMAPPER.convertValue(row, type));
+        }
+        return result;
+    }
+
     /**
      * 此方法和 page.evaluate 的唯一区别是此方法返回的是页内类型(JSHandle)
      * 此方法是{@link Page#evaluateHandle(String, List)}的简化版，自动判断参数pageFunction是 Javascript 函数还是 Javascript 的字符串
@@ -0,0 +1,430 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.miaixz.bus.core.lang.Assert;
+import org.miaixz.bus.logger.Logger;
+import org.miaixz.lancia.option.GoToOptions;
+import org.miaixz.lancia.option.PDFOptions;
+
+/**
+ * HTML 批量转 PDF
+ * <p>
+ * 预先创建固定数量的页面并反复使用，文档按提交顺序排队，同时渲染的文档数等于页面数；排队的文档超过 queueCapacity 时
+ * {@link #submit} 会阻塞调用方。pdf 直接流式写入调用方提供的输出，每个文档的耗时和整体吞吐、尾延迟可以通过 {@link #stats()} 取得
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class PdfRenderer implements AutoCloseable {
+
+    /**
+     * 用于计算延迟分位数的最近样本数
+     */
+    private static final int SAMPLES = 8192;
+
+    private final Browser browser;
+    private final PDFOptions pdfOptions;
+    private final GoToOptions contentOptions;
+    private final LinkedBlockingQueue<Page> idle = new LinkedBlockingQueue<>();
+    private final ExecutorService workers;
+    private final Semaphore permits;
+
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    // nanoTime 可能为负数，用两端的极值表示还没有记录
+    private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+    private final long[] latencies = new long[SAMPLES];
+    private int cursor;
+    private volatile boolean closed;
+
+    public PdfRenderer(Browser browser, int concurrency) {
+        this(browser, concurrency, concurrency * 4, new PDFOptions(), new GoToOptions());
+    }
+
+    /**
+     * 创建批量渲染器，会立即创建 concurrency 个页面
+     *
+     * @param browser        浏览器
+     * @param concurrency    同时渲染的文档数，也是页面数
+     * @param queueCapacity  等待渲染的文档数上限
+     * @param pdfOptions     生成pdf的选项，path 会被忽略
+     * @param contentOptions 设置html的选项
+     */
+    public PdfRenderer(Browser browser, int concurrency, int queueCapacity, PDFOptions pdfOptions,
+            GoToOptions contentOptions) {
+        Assert.isTrue(concurrency > 0, "concurrency must be positive");
+        this.browser = browser;
+        this.pdfOptions = pdfOptions;
+        this.contentOptions = contentOptions;
+        this.permits = new Semaphore(concurrency + Math.max(0, queueCapacity));
+        this.idle.addAll(browser.newPages(concurrency));
+        AtomicInteger index = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "lancia-pdf-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交一个文档，队列已满时阻塞直到有空位
+     *
+     * @param id     文档标识，会出现在结果中
+     * @param html   文档内容
+     * @param output pdf的输出
+     * @return 渲染结果
+     */
+    public CompletableFuture<Result> submit(String id, String html, Output output) {
+        Assert.isTrue(!this.closed, "PdfRenderer is closed");
+        try {
+            this.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        try {
+            this.workers.execute(() -> {
+                try {
+                    future.complete(this.render(id, html, output));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    this.permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.permits.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 提交一个文档，pdf写入文件
+     *
+     * @param id   文档标识
+     * @param html 文档内容
+     * @param path 文件路径
+     * @return 渲染结果
+     */
+    public CompletableFuture<Result> submit(String id, String html, Path path) {
+        return this.submit(id, html, Output.to(path));
+    }
+
+    private Result render(String id, String html, Output output) throws IOException {
+        Page page = this.acquire();
+        long start = System.nanoTime();
+        this.firstStart.accumulateAndGet(start, Math::min);
+        long contentEnd = start;
+        boolean healthy = false;
+        try (CountingOutputStream out = new CountingOutputStream(output.open())) {
+            page.setContent(html, this.contentOptions);
+            contentEnd = System.nanoTime();
+            page.pdf(this.pdfOptions, out);
+            healthy = true;
+            long end = System.nanoTime();
+            this.record(end, end - start);
+            this.completed.incrementAndGet();
+            return new Result(id, millis(contentEnd - start), millis(end - contentEnd), millis(end - start),
+                    out.count);
+        } catch (IOException | RuntimeException e) {
+            this.failed.incrementAndGet();
+            throw e;
+        } finally {
+            this.release(page, healthy);
+        }
+    }
+
+    private Page acquire() {
+        Page page = this.idle.poll();
+        return page != null ? page : this.browser.newPage();
+    }
+
+    /**
+     * 出错的页面可能处于任意状态，关闭后换一个新页面
+     */
+    private void release(Page page, boolean healthy) {
+        if (healthy && !page.isClosed() && !this.closed) {
+            this.idle.offer(page);
+            return;
+        }
+        closeQuietly(page);
+        if (this.closed) {
+            return;
+        }
+        try {
+            this.idle.offer(this.browser.newPage());
+        } catch (RuntimeException e) {
+            Logger.warn("Replace page for pdf renderer failed: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void record(long end, long nanos) {
+        this.latencies[this.cursor++ % SAMPLES] = nanos;
+        this.lastEnd.accumulateAndGet(end, Math::max);
+    }
+
+    /**
+     * 当前的统计信息
+     *
+     * @return 统计信息
+     */
+    public Stats stats() {
+        long[] samples;
+        synchronized (this) {
+            samples = Arrays.copyOf(this.latencies, Math.min(this.cursor, SAMPLES));
+        }
+        Arrays.sort(samples);
+        long first = this.firstStart.get();
+        long last = this.lastEnd.get();
+        long elapsed = first == Long.MAX_VALUE || last == Long.MIN_VALUE ? 0 : last - first;
+        int completed = this.completed.get();
+        double perSecond = elapsed > 0 ? completed * 1_000_000_000.0 / elapsed : 0;
+        return new Stats(completed, this.failed.get(), perSecond, percentile(samples, 0.5),
+                percentile(samples, 0.95), percentile(samples, 0.99));
+    }
+
+    /**
+     * 等待已经提交的文档渲染完成并关闭所有页面，不会关闭浏览器
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.workers.shutdown();
+        try {
+            this.workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Page page;
+        while ((page = this.idle.poll()) != null) {
+            closeQuietly(page);
+        }
+    }
+
+    private static void closeQuietly(Page page) {
+        try {
+            if (!page.isClosed()) {
+                page.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            Logger.warn("Close page failed: {}", e.getMessage());
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return millis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * pdf的输出，每个文档打开一次，写完后关闭
+     */
+    @FunctionalInterface
+    public interface Output {
+
+        OutputStream open() throws IOException;
+
+        /**
+         * 写入文件
+         *
+         * @param path 文件路径，上级目录不存在时会被创建
+         * @return 输出
+         */
+        static Output to(Path path) {
+            return () -> {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                return new BufferedOutputStream(Files.newOutputStream(path), 256 * 1024);
+            };
+        }
+
+    }
+
+    /**
+     * 一个文档的渲染结果，耗时单位为毫秒
+     */
+    public static class Result {
+
+        private final String id;
+        private final double contentMillis;
+        private final double pdfMillis;
+        private final double totalMillis;
+        private final long bytes;
+
+        Result(String id, double contentMillis, double pdfMillis, double totalMillis, long bytes) {
+            this.id = id;
+            this.contentMillis = contentMillis;
+            this.pdfMillis = pdfMillis;
+            this.totalMillis = totalMillis;
+            this.bytes = bytes;
+        }
+
+        public String getId() {
+            return this.id;
+        }
+
+        /**
+         * setContent 的耗时
+         *
+         * @return 毫秒
+         */
+        public double getContentMillis() {
+            return this.contentMillis;
+        }
+
+        /**
+         * 生成并写出pdf的耗时
+         *
+         * @return 毫秒
+         */
+        public double getPdfMillis() {
+            return this.pdfMillis;
+        }
+
+        public double getTotalMillis() {
+            return this.totalMillis;
+        }
+
+        /**
+         * 写出的pdf字节数
+         *
+         * @return 字节数
+         */
+        public long getBytes() {
+            return this.bytes;
+        }
+
+    }
+
+    /**
+     * 渲染统计，延迟为最近若干个文档的总耗时分位数，单位毫秒
+     */
+    public static class Stats {
+
+        private final int completed;
+        private final int failed;
+        private final double documentsPerSecond;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+
+        Stats(int completed, int failed, double documentsPerSecond, double p50Millis, double p95Millis,
+                double p99Millis) {
+            this.completed = completed;
+            this.failed = failed;
+            this.documentsPerSecond = documentsPerSecond;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+        }
+
+        public int getCompleted() {
+            return this.completed;
+        }
+
+        public int getFailed() {
+            return this.failed;
+        }
+
+        /**
+         * 从第一个文档开始渲染到最后一个文档完成之间的平均吞吐
+         *
+         * @return 每秒完成的文档数
+         */
+        public double getDocumentsPerSecond() {
+            return this.documentsPerSecond;
+        }
+
+        public double getP50Millis() {
+            return this.p50Millis;
+        }
+
+        public double getP95Millis() {
+            return this.p95Millis;
+        }
+
+        public double getP99Millis() {
+            return this.p99Millis;
+        }
+
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+
+    }
+
+}
@@ -107,7 +107,7 @@ public class Puppeteer {
      * @param options 连接的浏览器选项
      * @return 浏览器实例
      */
-    private static Browser connect(ConnectOptions options) {
+    public static Browser connect(ConnectOptions options) {
         Puppeteer puppeteer = new Puppeteer();
         adapterLauncher(puppeteer);
         return puppeteer.getLauncher().connect(options);
@@ -143,6 +143,20 @@ public class Puppeteer {
         return connect(options);
     }
 
+    /**
+     * 连接多个已经存在的浏览器实例，组成一个按负载分配页面的浏览器集群
+     *
+     * @param browserWSEndpointOrURLs 每个浏览器实例对应的browserWSEndpoint或browserURL
+     * @return 浏览器集群
+     */
+    public static BrowserFleet fleet(String... browserWSEndpointOrURLs) {
+        BrowserFleet fleet = new BrowserFleet();
+        for (String endpoint : browserWSEndpointOrURLs) {
+            fleet.add(endpoint);
+        }
+        return fleet;
+    }
+
     /**
      * The method launches a browser instance with given arguments. The browser will be closed when the parent java
      * process is closed.
@@ -181,6 +195,10 @@ public class Puppeteer {
             puppeteer.setProductName(productName);
         }
         switch (productName) {
+        case Builder.CHROME_HEADLESS_SHELL:
+            launcher = new ChromeLauncher(System.getProperty("user.dir"), puppeteer.getPreferredRevision(),
+                    productName);
+            break;
         case "firefox":
         case "chrome":
         default:
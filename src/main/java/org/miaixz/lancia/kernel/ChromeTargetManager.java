@@ -28,16 +28,21 @@
 package org.miaixz.lancia.kernel;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import org.miaixz.bus.core.lang.Assert;
 import org.miaixz.bus.core.lang.exception.InternalException;
+import org.miaixz.bus.core.xyz.CollKit;
 import org.miaixz.bus.core.xyz.StringKit;
 import org.miaixz.bus.logger.Logger;
 import org.miaixz.lancia.Builder;
 import org.miaixz.lancia.kernel.page.Target;
 import org.miaixz.lancia.kernel.page.TargetInfo;
+import org.miaixz.lancia.option.data.AttachPolicy;
 import org.miaixz.lancia.option.data.FilterEntry;
 import org.miaixz.lancia.socket.CDPSession;
 import org.miaixz.lancia.socket.Connection;
@@ -56,33 +61,53 @@ import io.reactivex.rxjava3.subjects.SingleSubject;
 public class ChromeTargetManager extends TargetManager {
 
     private final Connection connection;
-    private final Map<String, TargetInfo> discoveredTargetsByTargetId = new HashMap<>();
-    private final Map<String, Target> attachedTargetsByTargetId = new HashMap<>();
-    private final Map<String, Target> attachedTargetsBySessionId = new HashMap<>();
-    private final Set<String> ignoredTargets = new HashSet<>();
+    private final Map<String, TargetInfo> discoveredTargetsByTargetId = new ConcurrentHashMap<>();
+    private final Map<String, Target> attachedTargetsByTargetId = new ConcurrentHashMap<>();
+    private final Map<String, Target> attachedTargetsBySessionId = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Target>> targetFutures = new ConcurrentHashMap<>();
+    private final Set<String> ignoredTargets = ConcurrentHashMap.newKeySet();
+    /**
+     * 已经消失或者被过滤的目标，之后再等待这些目标时直接失败，只保留最近的记录
+     */
+    private final Map<String, String> tombstones = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return this.size() > 1024;
+        }
+    });
     private final Function<Target, Boolean> targetFilterCallback;
     private final TargetFactory targetFactory;
-    private final Map<CDPSession, Consumer<AttachedToTargetEvent>> attachedToTargetListenersBySession = new WeakHashMap<>();
-    private final Map<Connection, Consumer<AttachedToTargetEvent>> attachedToTargetListenersByConnection = new WeakHashMap<>();
-    private final Map<CDPSession, Consumer<DetachedFromTargetEvent>> detachedFromTargetListenersBySession = new WeakHashMap<>();
-    private final Map<Connection, Consumer<DetachedFromTargetEvent>> detachedFromTargetListenersByConnection = new WeakHashMap<>();
+    private final Map<CDPSession, Consumer<AttachedToTargetEvent>> attachedToTargetListenersBySession = Collections
+            .synchronizedMap(new WeakHashMap<>());
+    private final Map<Connection, Consumer<AttachedToTargetEvent>> attachedToTargetListenersByConnection = Collections
+            .synchronizedMap(new WeakHashMap<>());
+    private final Map<CDPSession, Consumer<DetachedFromTargetEvent>> detachedFromTargetListenersBySession = Collections
+            .synchronizedMap(new WeakHashMap<>());
+    private final Map<Connection, Consumer<DetachedFromTargetEvent>> detachedFromTargetListenersByConnection = Collections
+            .synchronizedMap(new WeakHashMap<>());
     private final SingleSubject<Boolean> initializeSubject = SingleSubject.create();
-    private final Set<String> targetsIdsForInit = new HashSet<>();
-    private final List<FilterEntry> discoveryFilter = new ArrayList<>() {
-        {
-            add(new FilterEntry());
-        }
-    };
-    private final List<Disposable> disposables = new ArrayList<>();
+    private final Set<String> targetsIdsForInit = ConcurrentHashMap.newKeySet();
+    private final List<FilterEntry> discoveryFilter = new ArrayList<>();
+    private final List<FilterEntry> attachFilter = new ArrayList<>();
+    private final AttachPolicy attachPolicy;
+    private final List<Disposable> disposables = new CopyOnWriteArrayList<>();
     private boolean waitForInitiallyDiscoveredTargets = true;
 
     public ChromeTargetManager(Connection connection, TargetFactory targetFactory,
             Function<Target, Boolean> targetFilterCallback, boolean waitForInitiallyDiscoveredTargets) {
+        this(connection, targetFactory, targetFilterCallback, waitForInitiallyDiscoveredTargets, null);
+    }
+
+    public ChromeTargetManager(Connection connection, TargetFactory targetFactory,
+            Function<Target, Boolean> targetFilterCallback, boolean waitForInitiallyDiscoveredTargets,
+            AttachPolicy attachPolicy) {
         super();
         this.connection = connection;
         this.targetFilterCallback = targetFilterCallback;
         this.targetFactory = targetFactory;
         this.waitForInitiallyDiscoveredTargets = waitForInitiallyDiscoveredTargets;
+        this.attachPolicy = attachPolicy == null ? new AttachPolicy() : attachPolicy;
+        this.compileFilters();
         disposables.add(Builder.<TargetCreatedEvent, CDPSessionEvent>fromEmitterEvent(this.connection,
                 CDPSessionEvent.Target_targetCreated).subscribe(this::onTargetCreated));
         disposables.add(Builder.<TargetDestroyedEvent, CDPSessionEvent>fromEmitterEvent(this.connection,
@@ -95,6 +120,60 @@ public class ChromeTargetManager extends TargetManager {
         this.setupAttachmentListeners(this.connection);
     }
 
+    /**
+     * 把挂载策略转换成 Target.setDiscoverTargets 和 Target.setAutoAttach 的过滤条件，第一个匹配的条目生效
+     */
+    private void compileFilters() {
+        if (CollKit.isNotEmpty(this.attachPolicy.getIgnore())) {
+            for (String type : this.attachPolicy.getIgnore()) {
+                Assert.isTrue(!"page".equals(type) && !"tab".equals(type), "Target type " + type + " can not be ignored");
+                this.discoveryFilter.add(new FilterEntry(true, type));
+                this.attachFilter.add(new FilterEntry(true, type));
+            }
+        }
+        this.discoveryFilter.add(new FilterEntry());
+        if (CollKit.isNotEmpty(this.attachPolicy.getLazy())) {
+            for (String type : this.attachPolicy.getLazy()) {
+                Assert.isTrue(!"page".equals(type) && !"tab".equals(type), "Target type " + type + " can not be lazy");
+                this.attachFilter.add(new FilterEntry(true, type));
+            }
+        }
+        if (CollKit.isNotEmpty(this.attachPolicy.getAutoAttach())) {
+            this.attachFilter.add(new FilterEntry(false, "page"));
+            this.attachFilter.add(new FilterEntry(false, "tab"));
+            for (String type : this.attachPolicy.getAutoAttach()) {
+                this.attachFilter.add(new FilterEntry(false, type));
+            }
+        } else {
+            this.attachFilter.add(new FilterEntry());
+        }
+    }
+
+    /**
+     * 是否会被自动挂载
+     *
+     * @param type 目标类型
+     * @return true表示自动挂载
+     */
+    private boolean isAutoAttached(String type) {
+        for (FilterEntry entry : this.attachFilter) {
+            if (entry.getType() == null || entry.getType().equals(type)) {
+                return !entry.isExclude();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否只发现不挂载，第一次使用时再创建会话
+     *
+     * @param type 目标类型
+     * @return true表示延迟挂载
+     */
+    private boolean isLazy(String type) {
+        return CollKit.isNotEmpty(this.attachPolicy.getLazy()) && this.attachPolicy.getLazy().contains(type);
+    }
+
     public void storeExistingTargetsForInit() {
         if (!this.waitForInitiallyDiscoveredTargets) {
             return;
@@ -104,7 +183,7 @@ public class ChromeTargetManager extends TargetManager {
             boolean isExtension = targetInfo.getUrl().startsWith("chrome-extension://");
             Target targetForFilter = new Target(targetInfo, null, null, this, null);
             if ((this.targetFilterCallback == null || this.targetFilterCallback.apply(targetForFilter)) && isPageOrFrame
-                    && !isExtension) {
+                    && !isExtension && this.isAutoAttached(targetInfo.getType())) {
                 this.targetsIdsForInit.add(targetInfo.getTargetId());
             }
         });
@@ -117,22 +196,88 @@ public class ChromeTargetManager extends TargetManager {
         this.connection.send("Target.setDiscoverTargets", params);
         this.storeExistingTargetsForInit();
         params.clear();
-        params.put("waitForDebuggerOnStart", true);
         params.put("flatten", true);
         params.put("autoAttach", true);
         List<FilterEntry> filter = new ArrayList<>();
         filter.add(new FilterEntry(true, "page"));
-        filter.addAll(this.discoveryFilter);
+        filter.addAll(this.attachFilter);
         params.put("filter", filter);
-        params.put("waitForDebuggerOnStart", true);
+        params.put("waitForDebuggerOnStart", this.attachPolicy.isWaitForDebuggerOnStart());
         this.connection.send("Target.setAutoAttach", params);
         this.finishInitializationIfReady(null);
-        this.initializeSubject.blockingSubscribe();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> initialized() {
+        return this.initializeSubject.toCompletionStage().toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Target> targetFuture(String targetId) {
+        CompletableFuture<Target> future = this.targetFutures.computeIfAbsent(targetId,
+                id -> new CompletableFuture<>());
+        // 先写墓碑再移除 future，这里在创建之后检查，不会错过并发的移除
+        String reason = this.tombstones.get(targetId);
+        if (reason != null && !future.isDone()) {
+            this.targetFutures.remove(targetId, future);
+            future.completeExceptionally(new InternalException(reason));
+        }
+        return future;
+    }
+
+    /**
+     * 目标被过滤，等待它的调用直接失败
+     *
+     * @param targetId 目标id
+     */
+    private void ignoreTarget(String targetId) {
+        this.ignoredTargets.add(targetId);
+        this.fail(targetId, "Target " + targetId + " is filtered out");
+    }
+
+    private void fail(String targetId, String reason) {
+        this.tombstones.put(targetId, reason);
+        CompletableFuture<Target> future = this.targetFutures.remove(targetId);
+        if (future != null) {
+            future.completeExceptionally(new InternalException(reason));
+        }
     }
 
     public void dispose() {
         disposables.forEach(Disposable::dispose);
         this.removeAttachmentListeners(this.connection);
+        this.targetFutures.values()
+                .forEach(future -> future.completeExceptionally(new InternalException("Target manager disposed")));
+        this.targetFutures.clear();
+    }
+
+    /**
+     * 通知目标可用，初始化完成后再完成对应的 future，不在事件线程中阻塞等待
+     *
+     * @param target 目标
+     */
+    private void exposeTarget(Target target) {
+        this.tombstones.remove(target.getTargetId());
+        this.emit(TargetManagerType.TargetAvailable, target);
+        target.initializedSubject.subscribe(status -> {
+            if (InitializationStatus.SUCCESS.equals(status)) {
+                this.targetFuture(target.getTargetId()).complete(target);
+            } else {
+                this.targetFuture(target.getTargetId()).completeExceptionally(
+                        new InternalException("Target " + target.getTargetId() + " initialization " + status));
+            }
+        }, e -> this.targetFuture(target.getTargetId()).completeExceptionally(e));
+    }
+
+    /**
+     * 通知目标已经消失
+     *
+     * @param target 目标
+     */
+    private void removeTarget(Target target) {
+        this.attachedTargetsByTargetId.remove(target.getTargetId());
+        this.emit(TargetManagerType.TargetGone, target);
+        this.fail(target.getTargetId(), "Target " + target.getTargetId() + " is gone");
     }
 
     @Override
@@ -161,8 +306,7 @@ public class ChromeTargetManager extends TargetManager {
         if (target == null) {
             return;
         }
-        this.attachedTargetsByTargetId.remove(target.getTargetId());
-        this.emit(TargetManagerType.TargetGone, target);
+        this.removeTarget(target);
     }
 
     private void onDetachedFromTarget(CDPSession parentSession, DetachedFromTargetEvent event) {
@@ -172,8 +316,7 @@ public class ChromeTargetManager extends TargetManager {
             return;
         }
         parentSession.getTarget().removeChildTarget(target);
-        this.attachedTargetsByTargetId.remove(target.getTargetId());
-        this.emit(TargetManagerType.TargetGone, target);
+        this.removeTarget(target);
     }
 
     private void onAttachedToTarget(Connection parentConnection, AttachedToTargetEvent event) {
@@ -194,14 +337,14 @@ public class ChromeTargetManager extends TargetManager {
             Target target = this.targetFactory.create(targetInfo, null, null);
             target.initialize();
             this.attachedTargetsByTargetId.put(targetInfo.getTargetId(), target);
-            this.emit(TargetManagerType.TargetAvailable, target);
+            this.exposeTarget(target);
             return;
         }
         boolean isExistingTarget = this.attachedTargetsByTargetId.containsKey(targetInfo.getTargetId());
         Target target = isExistingTarget ? this.attachedTargetsByTargetId.get(targetInfo.getTargetId())
                 : this.targetFactory.create(targetInfo, session, null);
         if (this.targetFilterCallback != null && !this.targetFilterCallback.apply(target)) {
-            this.ignoredTargets.add(targetInfo.getTargetId());
+            this.ignoreTarget(targetInfo.getTargetId());
             this.finishInitializationIfReady(targetInfo.getTargetId());
             silentDetach(parentConnection, session);
             return;
@@ -219,16 +362,15 @@ public class ChromeTargetManager extends TargetManager {
         parentConnection.emit(CDPSessionEvent.CDPSession_Ready, session);
         this.targetsIdsForInit.remove(target.getTargetId());
         if (!isExistingTarget) {
-            this.emit(TargetManagerType.TargetAvailable, target);
+            this.exposeTarget(target);
         }
         this.finishInitializationIfReady(null);
         Map<String, Object> params = new HashMap<>();
-        params.put("waitForDebuggerOnStart", true);
+        params.put("waitForDebuggerOnStart", this.attachPolicy.isWaitForDebuggerOnStart());
         params.put("flatten", true);
         params.put("autoAttach", true);
-        params.put("filter", this.discoveryFilter);
+        params.put("filter", this.attachFilter);
         try {
-            // 阻塞了，可咋办啊
             session.send("Target.setAutoAttach", params, null, false);
             session.send("Runtime.runIfWaitingForDebugger", null, null, false);
         } catch (Exception e) {
@@ -254,14 +396,14 @@ public class ChromeTargetManager extends TargetManager {
             Target target = this.targetFactory.create(targetInfo, null, null);
             target.initialize();
             this.attachedTargetsByTargetId.put(targetInfo.getTargetId(), target);
-            this.emit(TargetManagerType.TargetAvailable, target);
+            this.exposeTarget(target);
             return;
         }
         boolean isExistingTarget = this.attachedTargetsByTargetId.containsKey(targetInfo.getTargetId());
         Target target = isExistingTarget ? this.attachedTargetsByTargetId.get(targetInfo.getTargetId())
                 : this.targetFactory.create(targetInfo, session, parentSession);
         if (this.targetFilterCallback != null && !this.targetFilterCallback.apply(target)) {
-            this.ignoredTargets.add(targetInfo.getTargetId());
+            this.ignoreTarget(targetInfo.getTargetId());
             this.finishInitializationIfReady(targetInfo.getTargetId());
             silentDetach(parentSession, session);
             return;
@@ -281,14 +423,14 @@ public class ChromeTargetManager extends TargetManager {
         parentSession.emit(CDPSessionEvent.CDPSession_Ready, session);
         this.targetsIdsForInit.remove(target.getTargetId());
         if (!isExistingTarget) {
-            this.emit(TargetManagerType.TargetAvailable, target);
+            this.exposeTarget(target);
         }
         this.finishInitializationIfReady(null);
         Map<String, Object> params = new HashMap<>();
-        params.put("waitForDebuggerOnStart", true);
+        params.put("waitForDebuggerOnStart", this.attachPolicy.isWaitForDebuggerOnStart());
         params.put("flatten", true);
         params.put("autoAttach", true);
-        params.put("filter", this.discoveryFilter);
+        params.put("filter", this.attachFilter);
         try {
             session.send("Target.setAutoAttach", params, null, false);
             session.send("Runtime.runIfWaitingForDebugger", null, null, false);
@@ -347,6 +489,19 @@ public class ChromeTargetManager extends TargetManager {
             Target target = this.targetFactory.create(event.getTargetInfo(), null, null);
             target.initialize();
             this.attachedTargetsByTargetId.put(event.getTargetInfo().getTargetId(), target);
+        } else if (this.isLazy(event.getTargetInfo().getType())) {
+            // 延迟挂载的目标没有会话，第一次使用时通过 sessionFactory 创建
+            if (this.attachedTargetsByTargetId.containsKey(event.getTargetInfo().getTargetId())) {
+                return;
+            }
+            Target target = this.targetFactory.create(event.getTargetInfo(), null, null);
+            if (this.targetFilterCallback != null && !this.targetFilterCallback.apply(target)) {
+                this.ignoreTarget(event.getTargetInfo().getTargetId());
+                return;
+            }
+            target.initialize();
+            this.attachedTargetsByTargetId.put(event.getTargetInfo().getTargetId(), target);
+            this.exposeTarget(target);
         }
     }
 
@@ -355,12 +510,11 @@ public class ChromeTargetManager extends TargetManager {
         this.discoveredTargetsByTargetId.remove(event.getTargetId());
         this.finishInitializationIfReady(event.getTargetId());
         if (targetInfo != null) {
-            if ("service_worker".equals(targetInfo.getType())
+            if (("service_worker".equals(targetInfo.getType()) || this.isLazy(targetInfo.getType()))
                     && this.attachedTargetsByTargetId.containsKey(event.getTargetId())) {
                 Target target = this.attachedTargetsByTargetId.get(event.getTargetId());
                 if (target != null) {
-                    this.emit(TargetManagerType.TargetGone, target);
-                    this.attachedTargetsByTargetId.remove(event.getTargetId());
+                    this.removeTarget(target);
                 }
             }
         }
@@ -368,6 +522,13 @@ public class ChromeTargetManager extends TargetManager {
 
     private void onTargetInfoChanged(TargetInfoChangedEvent event) {
         this.discoveredTargetsByTargetId.put(event.getTargetInfo().getTargetId(), event.getTargetInfo());
+        if (this.isLazy(event.getTargetInfo().getType())) {
+            Target target = this.attachedTargetsByTargetId.get(event.getTargetInfo().getTargetId());
+            if (target != null) {
+                target.targetInfoChanged(event.getTargetInfo());
+            }
+            return;
+        }
         if (this.ignoredTargets.contains(event.getTargetInfo().getTargetId())
                 || !this.attachedTargetsByTargetId.containsKey(event.getTargetInfo().getTargetId())
                 || !event.getTargetInfo().getAttached()) {
@@ -85,14 +85,14 @@ public class PageTarget extends Target {
         this.checkIfInitialized();
     }
 
-    public Page page() {
+    public synchronized Page page() {
         if (this.pageSubject == null) {
             pageSubject = SingleSubject.create();
             CDPSession session = this.session();
             if (session == null) {
                 session = this.sessionFactory().create(false);
             }
-            pageSubject.onSuccess(Page.create(session, this, this.defaultViewport));
+            pageSubject.onSuccess(Page.create(session, this, this.defaultViewport, this.browser().isLeanPages()));
         }
         return this.pageSubject.getValue();
     }
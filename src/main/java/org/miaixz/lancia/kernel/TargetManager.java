@@ -28,6 +28,7 @@
 package org.miaixz.lancia.kernel;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.miaixz.lancia.Emitter;
 import org.miaixz.lancia.kernel.page.Target;
@@ -45,6 +46,21 @@ public abstract class TargetManager extends Emitter<TargetManagerType> {
 
     public abstract void initialize();
 
+    /**
+     * 初始发现的目标全部挂载完成时结束
+     *
+     * @return 初始化结果
+     */
+    public abstract CompletableFuture<Boolean> initialized();
+
+    /**
+     * 目标挂载并且初始化成功后完成，目标被过滤或者初始化失败时异常结束
+     *
+     * @param targetId 目标id
+     * @return 目标
+     */
+    public abstract CompletableFuture<Target> targetFuture(String targetId);
+
     public abstract void dispose();
 
     @FunctionalInterface
@@ -41,6 +41,9 @@ import org.miaixz.lancia.Browser;
 import org.miaixz.lancia.Builder;
 import org.miaixz.lancia.Emitter;
 import org.miaixz.lancia.Page;
+import org.miaixz.lancia.kernel.page.NetworkArchive;
+import org.miaixz.lancia.kernel.page.NetworkRecorder;
+import org.miaixz.lancia.kernel.page.SharedAssetCache;
 import org.miaixz.lancia.kernel.page.Target;
 import org.miaixz.lancia.socket.Connection;
 import org.miaixz.lancia.worker.enums.BrowserContextEvent;
@@ -93,6 +96,18 @@ public class Context extends Emitter<BrowserContextEvent> {
      * 浏览器上下文id
      */
     private String id;
+    /**
+     * 上下文中所有页面共用的网络记录器
+     */
+    private volatile NetworkRecorder recorder;
+    /**
+     * 上下文中所有页面共用的网络回放
+     */
+    private volatile NetworkArchive archive;
+    /**
+     * 上下文中所有页面使用的共享静态资源缓存
+     */
+    private volatile SharedAssetCache assetCache;
 
     public Context() {
         super();
@@ -139,9 +154,17 @@ public class Context extends Emitter<BrowserContextEvent> {
     }
 
     public Page newPage() {
-        synchronized (this) {
-            return this.browser.createPageInContext(this.id);
-        }
+        return this.browser.createPageInContext(this.id);
+    }
+
+    /**
+     * 批量创建页面，目标的创建和页面的初始化并行进行
+     *
+     * @param count 页面数量
+     * @return 创建好的页面
+     */
+    public List<Page> newPages(int count) {
+        return this.browser.createPagesInContext(this.id, count);
     }
 
     public void close() {
@@ -153,6 +176,74 @@ public class Context extends Emitter<BrowserContextEvent> {
         return !this.browser.browserContexts().contains(this);
     }
 
+    /**
+     * 记录上下文中现有和之后创建的所有页面的网络请求，传入 null 停止记录
+     *
+     * @param recorder 网络记录器
+     */
+    public void recordNetwork(NetworkRecorder recorder) {
+        NetworkRecorder previous = this.recorder;
+        this.recorder = recorder;
+        for (Page page : this.pages()) {
+            if (previous != null) {
+                previous.detach(page.networkManager());
+            }
+            if (recorder != null) {
+                recorder.attach(page.networkManager());
+            }
+        }
+    }
+
+    /**
+     * 上下文中现有和之后创建的所有页面都从网络记录回放响应，传入 null 停止回放
+     *
+     * @param archive 网络记录
+     */
+    public void replayNetwork(NetworkArchive archive) {
+        this.archive = archive;
+        for (Page page : this.pages()) {
+            page.replayNetwork(archive);
+        }
+    }
+
+    /**
+     * 上下文中现有和之后创建的所有页面都使用共享的静态资源缓存，传入 null 停止使用
+     *
+     * @param assetCache 静态资源缓存，可以同时用于多个上下文
+     */
+    public void useAssetCache(SharedAssetCache assetCache) {
+        SharedAssetCache previous = this.assetCache;
+        this.assetCache = assetCache;
+        for (Page page : this.pages()) {
+            if (previous != null) {
+                previous.detach(page.networkManager());
+            }
+            if (assetCache != null) {
+                assetCache.attach(page.networkManager());
+            }
+        }
+    }
+
+    /**
+     * 新创建的页面应用上下文的网络记录、回放和共享缓存
+     *
+     * @param page 页面
+     */
+    public void applyNetworkSettings(Page page) {
+        NetworkRecorder recorder = this.recorder;
+        if (recorder != null) {
+            recorder.attach(page.networkManager());
+        }
+        NetworkArchive archive = this.archive;
+        if (archive != null) {
+            page.replayNetwork(archive);
+        }
+        SharedAssetCache assetCache = this.assetCache;
+        if (assetCache != null) {
+            assetCache.attach(page.networkManager());
+        }
+    }
+
     public Target waitForTarget(Predicate<Target> predicate, int timeout) {
         Observable<Target> targetCreateObservable = Builder.fromEmitterEvent(this, BrowserContextEvent.TargetCreated);
         Observable<Target> TargetChangeObservable = Builder.fromEmitterEvent(this, BrowserContextEvent.TargetChanged);
@@ -0,0 +1,606 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.browser;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.miaixz.bus.core.lang.exception.InternalException;
+import org.miaixz.bus.core.xyz.StringKit;
+import org.miaixz.bus.logger.Logger;
+import org.miaixz.lancia.Builder;
+
+import com.sun.jna.Platform;
+
+/**
+ * 纯java实现的浏览器下载器
+ * <p>
+ * 服务器支持 Range 请求时，压缩包被切分成多个分块并行下载，已完成的分块记录在状态文件中，中断后再次下载只会补齐缺失的分块。 下载的同时按顺序读取已完成的数据进行解压，
+ * 全部完成后校验大小和 SHA-256，校验通过才把解压目录移动到最终位置。同一台机器上的多个 JVM 通过文件锁共享同一次下载
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class Downloader {
+
+    /**
+     * 同一个JVM内的下载锁，FileLock 只能在进程之间互斥
+     */
+    private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+    private static final int MAX_ATTEMPTS = 3;
+    /**
+     * 下载文件夹中存放锁和临时文件的目录
+     */
+    public static final String TEMP_FOLDER = ".tmp";
+
+    private final HttpClient client;
+    private final int parallelism;
+    private final int chunkSize;
+    private final String checksum;
+
+    /**
+     * 创建下载器
+     *
+     * @param proxy       代理，可以为null
+     * @param parallelism 并行下载的分块数量
+     * @param chunkSize   每个分块的大小，单位字节
+     * @param checksum    压缩包期望的 SHA-256 十六进制值，为空时不校验
+     */
+    public Downloader(Proxy proxy, int parallelism, int chunkSize, String checksum) {
+        HttpClient.Builder builder = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(Builder.DEFAULT_TIMEOUT));
+        if (proxy != null && proxy.type() == Proxy.Type.HTTP && proxy.address() instanceof InetSocketAddress) {
+            builder.proxy(ProxySelector.of((InetSocketAddress) proxy.address()));
+        }
+        this.client = builder.build();
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(64 * 1024, chunkSize);
+        this.checksum = checksum;
+    }
+
+    /**
+     * 异步发送 HEAD 请求，检测地址是否可以下载
+     *
+     * @param url 下载地址
+     * @return 可以下载时为true
+     */
+    public CompletableFuture<Boolean> exists(String url) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofMillis(Builder.DEFAULT_TIMEOUT)).build();
+        return this.client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() == 200).exceptionally(e -> false);
+    }
+
+    /**
+     * 下载压缩包并解压到指定的文件夹，文件夹已经存在时直接返回
+     *
+     * @param url        下载地址
+     * @param folderPath 解压后的文件夹
+     * @throws IOException          下载或者解压失败
+     * @throws InterruptedException 下载被打断
+     */
+    public void download(String url, Path folderPath) throws IOException, InterruptedException {
+        Path folder = folderPath.toAbsolutePath().normalize();
+        // 锁和临时文件放在单独的目录中，不和版本目录混在一起
+        Path temp = folder.getParent().resolve(TEMP_FOLDER);
+        Files.createDirectories(temp);
+        String name = folder.getFileName().toString();
+        Path lock = temp.resolve(name + ".lock");
+        Object monitor = LOCKS.computeIfAbsent(folder.toString(), key -> new Object());
+        synchronized (monitor) {
+            try (FileChannel lockChannel = FileChannel.open(lock, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock ignored = lockChannel.lock()) {
+                // 拿到锁之后再检查一次，别的进程可能已经下载完成
+                if (Files.exists(folder)) {
+                    return;
+                }
+                this.fetch(url, temp, name, folder);
+            }
+            try {
+                Files.deleteIfExists(lock);
+            } catch (IOException e) {
+                // 其他进程还在等待这个锁，由它们完成后删除
+            }
+        }
+    }
+
+    private void fetch(String url, Path temp, String name, Path folder) throws IOException, InterruptedException {
+        Path part = temp.resolve(name + ".zip.part");
+        Path state = temp.resolve(name + ".zip.state");
+        Path staging = temp.resolve(name + ".staging");
+        delete(staging);
+        Files.createDirectories(staging);
+
+        Meta meta = this.head(url);
+        Progress progress = Progress.load(state, meta, this.chunkSize);
+        if (progress == null) {
+            Files.deleteIfExists(part);
+            progress = new Progress(state, meta, this.chunkSize);
+        }
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MessageDigest digest = sha256();
+            // mac 下的压缩包包含符号链接，只能下载完成后交给 unzip 解压
+            boolean streaming = !Platform.isMac();
+            Future<?> extraction = null;
+            ExecutorService extractor = null;
+            if (streaming) {
+                extractor = Executors.newSingleThreadExecutor(daemon("lancia-unzip"));
+                Progress tracker = progress;
+                extraction = extractor.submit(() -> {
+                    try (InputStream in = new ContiguousInputStream(part, tracker, digest)) {
+                        unzip(in, staging);
+                        in.transferTo(OutputStream.nullOutputStream());
+                    }
+                    return null;
+                });
+            }
+            try {
+                if (meta.ranges && meta.length > 0) {
+                    this.parallel(url, channel, progress);
+                } else {
+                    this.sequential(url, channel, progress);
+                }
+                if (extraction != null) {
+                    extraction.get();
+                } else {
+                    try (InputStream in = new ContiguousInputStream(part, progress, digest)) {
+                        in.transferTo(OutputStream.nullOutputStream());
+                    }
+                    unzipWithProcess(part, staging);
+                }
+            } catch (ExecutionException e) {
+                progress.fail(e.getCause());
+                extraction.cancel(true);
+                delete(staging);
+                throw new IOException("Failed to extract " + url, e.getCause());
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                progress.fail(e);
+                if (extraction != null) {
+                    extraction.cancel(true);
+                }
+                delete(staging);
+                throw e;
+            } finally {
+                if (extractor != null) {
+                    extractor.shutdownNow();
+                }
+            }
+            this.verify(url, channel.size(), meta, digest, part, state, staging);
+        }
+        markExecutable(staging);
+        Files.move(staging, folder, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(part);
+        Files.deleteIfExists(state);
+        Logger.info("Downloaded {} to {}", url, folder);
+    }
+
+    private void verify(String url, long size, Meta meta, MessageDigest digest, Path part, Path state, Path staging)
+            throws IOException {
+        String actual = HexFormat.of().formatHex(digest.digest());
+        boolean sizeMismatch = meta.length > 0 && size != meta.length;
+        boolean checksumMismatch = StringKit.isNotEmpty(this.checksum) && !this.checksum.equalsIgnoreCase(actual);
+        if (sizeMismatch || checksumMismatch) {
+            Files.deleteIfExists(part);
+            Files.deleteIfExists(state);
+            delete(staging);
+            throw new IOException(sizeMismatch ? "Size mismatch for " + url + ": expected " + meta.length + " got " + size
+                    : "Checksum mismatch for " + url + ": expected " + this.checksum + " got " + actual);
+        }
+    }
+
+    private Meta head(String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofMillis(Builder.DEFAULT_TIMEOUT)).build();
+        HttpResponse<Void> response = this.client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed to download " + url + ", HTTP " + response.statusCode());
+        }
+        HttpHeaders headers = response.headers();
+        Meta meta = new Meta();
+        meta.length = headers.firstValueAsLong("Content-Length").orElse(-1);
+        meta.ranges = headers.firstValue("Accept-Ranges").map("bytes"::equalsIgnoreCase).orElse(false);
+        meta.etag = headers.firstValue("ETag").orElse("");
+        return meta;
+    }
+
+    /**
+     * 按分块并行下载，分块按顺序提交，已完成的分块跳过
+     */
+    private void parallel(String url, FileChannel channel, Progress progress)
+            throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, daemon("lancia-download"));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int index = 0; index < progress.chunks; index++) {
+                if (progress.isDone(index)) {
+                    continue;
+                }
+                int chunk = index;
+                futures.add(executor.submit(() -> {
+                    this.chunk(url, channel, progress, chunk);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause
+                    : new IOException("Failed to download " + url, cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void chunk(String url, FileChannel channel, Progress progress, int index)
+            throws IOException, InterruptedException {
+        long start = (long) index * progress.chunkSize;
+        long end = Math.min(start + progress.chunkSize, progress.length) - 1;
+        IOException error = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url)).header("Range", "bytes=" + start + "-" + end)
+                    .timeout(Duration.ofMillis(Builder.DEFAULT_TIMEOUT)).GET().build();
+            try {
+                HttpResponse<InputStream> response = this.client.send(request,
+                        HttpResponse.BodyHandlers.ofInputStream());
+                try (InputStream in = response.body()) {
+                    if (response.statusCode() != 206) {
+                        throw new IOException("Range request is not supported, HTTP " + response.statusCode());
+                    }
+                    long written = write(in, channel, start, end - start + 1);
+                    if (written != end - start + 1) {
+                        throw new IOException("Chunk " + index + " is incomplete");
+                    }
+                }
+                progress.done(index);
+                return;
+            } catch (IOException e) {
+                error = e;
+                Logger.warn("Download chunk {} of {} failed (attempt {}): {}", index, url, attempt + 1,
+                        e.getMessage());
+            }
+        }
+        throw error;
+    }
+
+    /**
+     * 服务器不支持 Range 请求或者没有返回长度时，单线程下载
+     */
+    private void sequential(String url, FileChannel channel, Progress progress)
+            throws IOException, InterruptedException {
+        channel.truncate(0);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofMillis(Builder.DEFAULT_TIMEOUT))
+                .GET().build();
+        HttpResponse<InputStream> response = this.client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Failed to download " + url + ", HTTP " + response.statusCode());
+            }
+            byte[] buffer = new byte[Builder.DEFAULT_BUFFER_SIZE * 8];
+            long position = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+                progress.advance(position);
+            }
+            progress.finish(position);
+        }
+    }
+
+    private static long write(InputStream in, FileChannel channel, long position, long length) throws IOException {
+        byte[] buffer = new byte[Builder.DEFAULT_BUFFER_SIZE * 8];
+        long written = 0;
+        int read;
+        while (written < length && (read = in.read(buffer, 0, (int) Math.min(buffer.length, length - written))) != -1) {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+            while (byteBuffer.hasRemaining()) {
+                written += channel.write(byteBuffer, position + written);
+            }
+        }
+        return written;
+    }
+
+    private static void unzip(InputStream in, Path target) throws IOException {
+        ZipInputStream zip = new ZipInputStream(new BufferedInputStream(in, Builder.DEFAULT_BUFFER_SIZE * 8));
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            Path path = target.resolve(entry.getName()).normalize();
+            if (!path.startsWith(target)) {
+                throw new IOException("Bad zip entry: " + entry.getName());
+            }
+            if (entry.isDirectory()) {
+                Files.createDirectories(path);
+            } else {
+                Files.createDirectories(path.getParent());
+                Files.copy(zip, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            zip.closeEntry();
+        }
+    }
+
+    private static void unzipWithProcess(Path archive, Path target) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("unzip", "-q", "-o", archive.toString(), "-d", target.toString())
+                .redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (!process.waitFor(10L, TimeUnit.MINUTES) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new InternalException("unzip " + archive + " failed: " + output);
+        }
+    }
+
+    /**
+     * zip 不保存 unix 权限，给可执行文件和动态库加上执行权限
+     */
+    private static void markExecutable(Path folder) throws IOException {
+        if (Platform.isWindows()) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.filter(Files::isRegularFile).forEach(path -> {
+                String fileName = path.getFileName().toString();
+                if (!fileName.contains(".") || fileName.endsWith(".so") || fileName.endsWith(".sh")
+                        || fileName.contains(".so.")) {
+                    path.toFile().setExecutable(true, false);
+                }
+            });
+        }
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new InternalException(e);
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * HEAD 请求返回的压缩包信息
+     */
+    static class Meta {
+
+        long length;
+        boolean ranges;
+        String etag;
+
+    }
+
+    /**
+     * 记录已完成的分块，并且提供连续完成的数据边界给解压线程
+     */
+    static class Progress {
+
+        private final Path state;
+        private final long length;
+        private final int chunkSize;
+        private final int chunks;
+        private final String etag;
+        private final BitSet done = new BitSet();
+        private long watermark;
+        private boolean finished;
+        private Throwable error;
+
+        Progress(Path state, Meta meta, int chunkSize) {
+            this.state = state;
+            this.length = meta.length;
+            this.chunkSize = chunkSize;
+            this.etag = meta.etag;
+            this.chunks = meta.length > 0 ? (int) ((meta.length + chunkSize - 1) / chunkSize) : 0;
+        }
+
+        /**
+         * 读取上一次未完成的下载进度，压缩包发生变化时返回null
+         */
+        static Progress load(Path state, Meta meta, int chunkSize) throws IOException {
+            if (!meta.ranges || meta.length <= 0 || !Files.exists(state)) {
+                return null;
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(state, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            if (!String.valueOf(meta.length).equals(properties.getProperty("length"))
+                    || !meta.etag.equals(properties.getProperty("etag"))
+                    || !String.valueOf(chunkSize).equals(properties.getProperty("chunkSize"))) {
+                return null;
+            }
+            Progress progress = new Progress(state, meta, chunkSize);
+            String chunks = properties.getProperty("chunks", "");
+            for (String chunk : chunks.split(",")) {
+                if (StringKit.isNotEmpty(chunk)) {
+                    progress.done.set(Integer.parseInt(chunk.trim()));
+                }
+            }
+            progress.refresh();
+            Logger.info("Resume download from {} of {} chunks", progress.done.cardinality(), progress.chunks);
+            return progress;
+        }
+
+        synchronized boolean isDone(int index) {
+            return this.done.get(index);
+        }
+
+        synchronized void done(int index) throws IOException {
+            this.done.set(index);
+            this.refresh();
+            this.save();
+            this.notifyAll();
+        }
+
+        synchronized void advance(long position) {
+            this.watermark = position;
+            this.notifyAll();
+        }
+
+        synchronized void finish(long position) {
+            this.watermark = position;
+            this.finished = true;
+            this.notifyAll();
+        }
+
+        synchronized void fail(Throwable error) {
+            this.error = error;
+            this.notifyAll();
+        }
+
+        /**
+         * 等待直到 position 之后有可读的数据
+         *
+         * @return 可读的数据边界，-1 表示已经读完
+         */
+        synchronized long await(long position) throws IOException {
+            while (position >= this.watermark && !this.finished && this.error == null) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            if (position < this.watermark) {
+                return this.watermark;
+            }
+            if (this.error != null) {
+                throw new IOException("Download failed", this.error);
+            }
+            return -1;
+        }
+
+        private void refresh() {
+            int next = this.done.nextClearBit(0);
+            this.watermark = Math.min((long) next * this.chunkSize, this.length);
+            this.finished = next >= this.chunks;
+        }
+
+        private void save() throws IOException {
+            StringJoiner chunks = new StringJoiner(",");
+            this.done.stream().forEach(index -> chunks.add(String.valueOf(index)));
+            Properties properties = new Properties();
+            properties.setProperty("length", String.valueOf(this.length));
+            properties.setProperty("etag", this.etag);
+            properties.setProperty("chunkSize", String.valueOf(this.chunkSize));
+            properties.setProperty("chunks", chunks.toString());
+            try (Writer writer = Files.newBufferedWriter(this.state, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+        }
+
+    }
+
+    /**
+     * 按顺序读取已经下载完成的数据，数据未到达时阻塞等待，同时计算摘要
+     */
+    static class ContiguousInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final Progress progress;
+        private final MessageDigest digest;
+        private long position;
+
+        ContiguousInputStream(Path file, Progress progress, MessageDigest digest) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.progress = progress;
+            this.digest = digest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return this.read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long limit = this.progress.await(this.position);
+            if (limit < 0) {
+                return -1;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, limit - this.position));
+            int read = this.channel.read(buffer, this.position);
+            if (read > 0) {
+                this.digest.update(b, off, read);
+                this.position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+
+    }
+
+}
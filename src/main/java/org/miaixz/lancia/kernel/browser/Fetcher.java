@@ -28,16 +28,15 @@
 package org.miaixz.lancia.kernel.browser;
 
 import java.io.*;
-import java.net.HttpURLConnection;
 import java.net.Proxy;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -126,6 +125,17 @@ public class Fetcher {
                     put(Builder.WIN64, "%s/chrome-for-testing/%s/win64/%s.zip");
                 }
             });
+            put(Builder.CHROME_HEADLESS_SHELL, new HashMap<>() {
+                private static final long serialVersionUID = -1L;
+                {
+                    put("host", "https://registry.npmmirror.com/-/binary");
+                    put(Builder.LINUX, "%s/chrome-for-testing/%s/linux64/%s.zip");
+                    put(Builder.MAC_ARM64, "%s/chrome-for-testing/%s/mac-arm64/%s.zip");
+                    put(Builder.MAC_X64, "%s/chrome-for-testing/%s/mac-x64/%s.zip");
+                    put(Builder.WIN32, "%s/chrome-for-testing/%s/win32/%s.zip");
+                    put(Builder.WIN64, "%s/chrome-for-testing/%s/win64/%s.zip");
+                }
+            });
         }
     };
 
@@ -145,16 +155,27 @@ public class Fetcher {
     private String downloadsFolder;
 
     /**
-     * 目前支持两种产品：chrome or firefix
+     * 目前支持的产品：chrome、chrome-headless-shell or firefix
      */
     private String product;
 
+    /**
+     * 浏览器下载器
+     */
+    private Downloader downloader;
+
+    /**
+     * 使用内置脚本下载
+     */
+    private boolean shell;
+
     public Fetcher() {
         this.product = "chrome";
         this.downloadsFolder = Builder.join(System.getProperty("user.dir"), ".local-browser");
         this.downloadHost = downloadURLs.get(this.product).get("host");
         setPlatform();
         Assert.notNull(downloadURLs.get(this.product).get(this.platform), "Unsupported platform: " + this.platform);
+        this.downloader = new Downloader(null, 4, 8 * 1024 * 1024, null);
     }
 
     /**
@@ -165,14 +186,20 @@ public class Fetcher {
      */
     public Fetcher(String projectRoot, FetcherOptions options) {
         this.product = (StringKit.isNotEmpty(options.getProduct()) ? options.getProduct() : "chrome").toLowerCase();
-        Assert.isTrue("chrome".equals(product) || "firefox".equals(product), "Unkown product: " + options.getProduct());
+        Assert.isTrue("chrome".equals(product) || Builder.CHROME_HEADLESS_SHELL.equals(product)
+                || "firefox".equals(product), "Unkown product: " + options.getProduct());
+        // chrome-headless-shell 和 chrome 的版本号相同，放在单独的目录下避免冲突
         this.downloadsFolder = StringKit.isNotEmpty(options.getPath()) ? options.getPath()
-                : Builder.join(projectRoot, ".local-browser");
+                : Builder.CHROME_HEADLESS_SHELL.equals(this.product)
+                        ? Builder.join(projectRoot, ".local-browser", Builder.CHROME_HEADLESS_SHELL)
+                        : Builder.join(projectRoot, ".local-browser");
         this.downloadHost = StringKit.isNotEmpty(options.getHost()) ? options.getHost()
                 : downloadURLs.get(this.product).get("host");
         this.platform = StringKit.isNotEmpty(options.getPlatform()) ? options.getPlatform() : null;
         setPlatform();
         Assert.notNull(downloadURLs.get(this.product).get(this.platform), "Unsupported platform: " + this.platform);
+        this.downloader = new Downloader(null, options.getParallelism(), options.getChunkSize(), options.getChecksum());
+        this.shell = options.isShell();
     }
 
     /**
@@ -222,49 +249,24 @@ public class Fetcher {
      * 检测对应的浏览器版本是否可以下载
      *
      * @param revision 浏览器版本
-     * @param proxy    cant be null
+     * @param proxy    代理 可以为null
      * @return boolean
-     * @throws IOException 异常
      */
-    public boolean canDownload(String revision, Proxy proxy) throws IOException {
-        String url = getDownloadURL(this.product, this.platform, this.downloadHost, revision);
-        return httpRequest(proxy, url, "HEAD");
+    public boolean canDownload(String revision, Proxy proxy) {
+        return this.canDownloadAsync(revision, proxy).join();
     }
 
     /**
-     * 发送一个http请求
+     * 异步检测对应的浏览器版本是否可以下载
      *
-     * @param proxy  代理 可以为null
-     * @param url    请求的url
-     * @param method 请求方法 get post head
-     * @return boolean
+     * @param revision 浏览器版本
+     * @param proxy    代理 可以为null
+     * @return 可以下载时为true
      */
-    private boolean httpRequest(Proxy proxy, String url, String method) throws IOException {
-        HttpURLConnection conn = null;
-        try {
-            URL urlSend = new URL(url);
-            if (proxy != null) {
-                conn = (HttpURLConnection) urlSend.openConnection(proxy);
-            } else {
-                conn = (HttpURLConnection) urlSend.openConnection();
-            }
-            conn.setRequestMethod(method);
-            conn.connect();
-            if (conn.getResponseCode() >= 300 && conn.getResponseCode() <= 400
-                    && StringKit.isNotEmpty(conn.getHeaderField("Location"))) {
-                httpRequest(proxy, conn.getHeaderField("Location"), method);
-            } else {
-                if (conn.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    return true;
-                }
-            }
-
-        } finally {
-            if (conn != null) {
-                conn.disconnect();
-            }
-        }
-        return false;
+    public CompletableFuture<Boolean> canDownloadAsync(String revision, Proxy proxy) {
+        String url = getDownloadURL(this.product, this.platform, this.downloadHost, revision);
+        Downloader downloader = proxy == null ? this.downloader : new Downloader(proxy, 1, 0, null);
+        return downloader.exists(url);
     }
 
     /**
@@ -284,13 +286,14 @@ public class Fetcher {
         if (!(existsAsync(this.downloadsFolder))) {
             mkdirAsync(this.downloadsFolder);
         }
-        if (!existsAsync(folderPath)) {
+        if (this.shell) {
             mkdirAsync(folderPath);
+            int lastIndexOf = url.lastIndexOf("/");
+            String archiveName = url.substring(lastIndexOf);
+            shell(url, folderPath, archiveName);
+        } else {
+            this.downloader.download(url, Paths.get(folderPath));
         }
-        int lastIndexOf = url.lastIndexOf("/");
-        String archiveName = url.substring(lastIndexOf);
-        // 用shell下载，不用java代码下载了
-        shell(url, folderPath, archiveName);
         Revision revisionInfo = this.revisionInfo(revision);
         if (revisionInfo != null) {
             try {
@@ -351,6 +354,10 @@ public class Fetcher {
      * @return {@link Revision}
      */
     private Revision parseFolderPath(String product, Path folderPath) {
+        // 只有解压完成的版本目录才算，忽略下载中的临时文件
+        if (!Files.isDirectory(folderPath)) {
+            return null;
+        }
         Path fileName = folderPath.getFileName();
         String[] split = fileName.toString().split("-");
         if (split.length != 2)
@@ -504,6 +511,16 @@ public class Fetcher {
             } else {
                 throw new IllegalArgumentException("Unsupported platform: " + this.platform);
             }
+        } else if (Builder.CHROME_HEADLESS_SHELL.equals(this.product)) {
+            if (Builder.WIN32.equals(this.platform) || Builder.WIN64.equals(this.platform)) {
+                executablePath = Builder.join(folderPath, archiveName(this.product, this.platform),
+                        "chrome-headless-shell.exe");
+            } else if (downloadURLs.get(this.product).containsKey(this.platform)) {
+                executablePath = Builder.join(folderPath, archiveName(this.product, this.platform),
+                        "chrome-headless-shell");
+            } else {
+                throw new IllegalArgumentException("Unsupported platform: " + this.platform);
+            }
         } else if ("firefox".equals(this.product)) {
             if ("mac".equals(this.platform))
                 executablePath = Builder.join(folderPath, "Firefox Nightly.app", "Contents", "MacOS", "firefox");
@@ -552,6 +569,9 @@ public class Fetcher {
                 return "chrome-win32";
             if (Builder.WIN64.equals(platform))
                 return "chrome-win64";
+        } else if (Builder.CHROME_HEADLESS_SHELL.equals(product)) {
+            if (downloadURLs.get(product).containsKey(platform))
+                return Builder.CHROME_HEADLESS_SHELL + "-" + platform;
         } else if ("firefox".equals(product)) {
             if ("linux".equals(platform))
                 return "firefox-linux";
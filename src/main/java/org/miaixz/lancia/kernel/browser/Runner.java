@@ -32,9 +32,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -65,18 +67,21 @@ import io.reactivex.rxjava3.disposables.Disposable;
  */
 public class Runner extends Emitter<RunnerType> {
 
-    private static final Map<Process, String> pidMap = new HashMap<>();
+    private static final Map<Process, String> pidMap = new ConcurrentHashMap<>();
 
     private static final Pattern WS_ENDPOINT_PATTERN = Pattern.compile("^DevTools listening on (ws://.*)$");
-    private static final List<Runner> runners = new ArrayList<>();
-    private static boolean isRegisterShutdownHook = false;
+    /**
+     * 所有已启动且未关闭的浏览器进程，多线程启动时共享
+     */
+    private static final Set<Runner> runners = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean isRegisterShutdownHook = new AtomicBoolean(false);
     private final String executablePath;
     private final List<String> processArguments;
     private final String tempDirectory;
-    private final List<Disposable> disposables = new ArrayList<>();
-    private Process process;
-    private Connection connection;
-    private boolean closed;
+    private final List<Disposable> disposables = new CopyOnWriteArrayList<>();
+    private volatile Process process;
+    private volatile Connection connection;
+    private volatile boolean closed;
 
     public Runner(String executablePath, List<String> processArguments, String tempDirectory) {
         super();
@@ -93,15 +98,17 @@ public class Runner extends Emitter<RunnerType> {
      * @throws IOException io异常
      */
     public void start(LaunchOptions options) throws IOException, InterruptedException {
-        if (this.process != null) {
-            throw new RuntimeException("This process has previously been started.");
+        synchronized (this) {
+            if (this.process != null) {
+                throw new RuntimeException("This process has previously been started.");
+            }
+            List<String> arguments = new ArrayList<>();
+            arguments.add(executablePath);
+            arguments.addAll(processArguments);
+            ProcessBuilder processBuilder = new ProcessBuilder().command(arguments).redirectErrorStream(true);
+            this.process = processBuilder.start();
+            this.closed = false;
         }
-        List<String> arguments = new ArrayList<>();
-        arguments.add(executablePath);
-        arguments.addAll(processArguments);
-        ProcessBuilder processBuilder = new ProcessBuilder().command(arguments).redirectErrorStream(true);
-        this.process = processBuilder.start();
-        this.closed = false;
         pidMap.putIfAbsent(this.process, Builder.getProcessId(this.process));
         registerHook();
         addProcessListener(options);
@@ -165,15 +172,9 @@ public class Runner extends Emitter<RunnerType> {
      */
     private void registerHook() {
         runners.add(this);
-        if (isRegisterShutdownHook) {
-            return;
-        }
-        synchronized (Runner.class) {
-            if (!isRegisterShutdownHook) {
-                RuntimeShutdownHookRegistry hook = new RuntimeShutdownHookRegistry();
-                hook.register(new Thread(this::closeAllBrowser));
-                isRegisterShutdownHook = true;
-            }
+        if (isRegisterShutdownHook.compareAndSet(false, true)) {
+            RuntimeShutdownHookRegistry hook = new RuntimeShutdownHookRegistry();
+            hook.register(new Thread(() -> closeAll(Builder.DEFAULT_TIMEOUT), "lancia-shutdown-hook"));
         }
     }
 
@@ -205,7 +206,7 @@ public class Runner extends Emitter<RunnerType> {
             return true;
         }
         try {
-            String pid = pidMap.get(this.process);
+            String pid = pidMap.remove(this.process);
             if ("-1".equals(pid) || StringKit.isEmpty(pid)) {
                 // Logger.warn("invalid pid ({}) ,kill chrome process failed", pid);
                 return false;
@@ -324,36 +325,59 @@ public class Runner extends Emitter<RunnerType> {
 
     // 系统奔溃或正常关闭时候，关闭所有打开的浏览器
     public void closeAllBrowser() {
-        for (Runner runner : runners) {
-            runner.closeBrowser();
-        }
+        closeAll(Builder.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * 并行关闭所有打开的浏览器，每个浏览器在独立的线程中关闭，总耗时不超过给定的超时时间
+     *
+     * @param timeout 超时时间，单位毫秒
+     * @return 超时仍未关闭的浏览器数量
+     */
+    public static int closeAll(long timeout) {
+        return Builder.closeInParallel(new ArrayList<>(runners), Runner::closeBrowser, Runner::getProcess, timeout);
+    }
+
+    /**
+     * 当前已启动且未关闭的浏览器数量
+     *
+     * @return 浏览器数量
+     */
+    public static int runningCount() {
+        return runners.size();
     }
 
     /**
      * 关闭浏览器
      */
     public void closeBrowser() {
-        if (this.getClosed()) {
-            return;
-        }
-        // 发送关闭指令
-        if (this.connection != null && !this.connection.closed) {
-            this.connection.send("Browser.close");
-        }
-        // 通过kill命令关闭
-        this.disposables.forEach(Disposable::dispose);
-        boolean killResult = this.kill();
-        if (killResult) {
+        synchronized (this) {
+            if (this.getClosed()) {
+                return;
+            }
+            // 发送关闭指令，不等待浏览器响应，随后会直接结束进程
+            Connection connection = this.connection;
+            if (connection != null && !connection.closed) {
+                try {
+                    connection.send("Browser.close", null, null, false);
+                } catch (Exception e) {
+                    Logger.trace("Send Browser.close error: {}", e.getMessage());
+                }
+            }
+            // 通过kill命令关闭
+            this.disposables.forEach(Disposable::dispose);
+            boolean killResult = this.kill();
+            if (!killResult) {
+                // 采用java的Process类进行关闭
+                try {
+                    this.destroyProcess();
+                } catch (InterruptedException e) {
+                    Logger.error("Destroy chrome process error.", e);
+                }
+            }
             this.closed = true;
-            return;
-        }
-        // 采用java的Process类进行关闭
-        try {
-            this.destroyProcess();
-        } catch (InterruptedException e) {
-            Logger.error("Destroy chrome process error.", e);
         }
-        this.closed = true;
+        runners.remove(this);
     }
 
     public boolean getClosed() {
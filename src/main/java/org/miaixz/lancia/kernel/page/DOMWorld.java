@@ -34,6 +34,7 @@ import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
@@ -42,6 +43,7 @@ import org.miaixz.bus.core.lang.Assert;
 import org.miaixz.bus.core.lang.exception.TimeoutException;
 import org.miaixz.bus.core.xyz.CollKit;
 import org.miaixz.bus.core.xyz.StringKit;
+import org.miaixz.bus.logger.Logger;
 import org.miaixz.lancia.Builder;
 import org.miaixz.lancia.option.*;
 import org.miaixz.lancia.worker.enums.PageEvaluateType;
@@ -82,7 +84,7 @@ public class DOMWorld {
         this.documentPromise = null;
         this.contextPromise = null;
         this.setContext(null);
-        this.waitTasks = new HashSet<>();
+        this.waitTasks = ConcurrentHashMap.newKeySet();
         this.detached = false;
         this.hasContext = false;
     }
@@ -105,12 +107,10 @@ public class DOMWorld {
         if (context != null) {
             this.contextResolveCallback(context);
             hasContext = true;
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            // 将每个 WaitTask 的 rerun() 调用转换为 CompletableFuture
-            this.waitTasks.forEach(task -> {
-                futures.add(CompletableFuture.runAsync(task::rerun));
-            });
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            // 在新的上下文中重新注册等待任务，不阻塞事件线程
+            for (WaitTask task : this.waitTasks) {
+                CompletableFuture.runAsync(task::rerun);
+            }
         } else {
             this.documentPromise = null;
             this.hasContext = false;
@@ -166,7 +166,8 @@ public class DOMWorld {
         if (this.documentPromise != null)
             return this.documentPromise;
         ExecutionContext context = this.executionContext();
-        JSHandle document = (JSHandle) context.evaluateHandle("document", null);
+        // 缓存的句柄会在作用域关闭后继续使用，不能放入作用域
+        JSHandle document = (JSHandle) context.evaluateHandleUnscoped("document", null);
         this.documentPromise = document.asElement();
         return this.documentPromise;
     }
@@ -208,9 +209,8 @@ public class DOMWorld {
             }
         }
         LifecycleWatcher watcher = new LifecycleWatcher(this.frameManager.getNetworkManager(), this.frame, waitUntil,
-                timeout);
-        this.evaluate("(html) => {\n" + "      document.open();\n" + "      document.write(html);\n"
-                + "      document.close();\n" + "    }", Collections.singletonList(html));
+                timeout, options == null ? null : options.getNetworkIdle());
+        this.writeDocument(html);
 
         try {
             watcher.waitForLifecycle();
@@ -219,6 +219,28 @@ public class DOMWorld {
         }
     }
 
+    /**
+     * 用 Page.setDocumentContent 直接把html交给解析器，不需要把整个文档序列化成函数参数再执行 document.write；
+     * 不支持该命令时退回到 document.write
+     */
+    private void writeDocument(String html) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("frameId", this.frame.getId());
+        params.put("html", html);
+        try {
+            this.frame.getClient().send("Page.setDocumentContent", params);
+            return;
+        } catch (RuntimeException e) {
+            // 只有浏览器不认识该命令时才退回，超时等错误下文档可能已经写入，再写一遍会重复
+            if (e.getMessage() == null || !e.getMessage().contains("wasn't found")) {
+                throw e;
+            }
+            Logger.debug("Page.setDocumentContent is not supported, fall back to document.write");
+        }
+        this.evaluate("(html) => {\n" + "      document.open();\n" + "      document.write(html);\n"
+                + "      document.close();\n" + "    }", Collections.singletonList(html));
+    }
+
     public ElementHandle addScriptTag(ScriptTagOptions options) throws IOException {
         if (StringKit.isNotEmpty(options.getUrl())) {
             try {
@@ -454,4 +476,9 @@ public class DOMWorld {
         return waitTasks;
     }
 
+
+    public FrameManager getFrameManager() {
+        return frameManager;
+    }
+
 }
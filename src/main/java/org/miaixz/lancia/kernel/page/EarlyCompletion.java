@@ -0,0 +1,196 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.miaixz.bus.core.xyz.StringKit;
+import org.miaixz.bus.logger.Logger;
+import org.miaixz.lancia.Builder;
+import org.miaixz.lancia.nimble.network.LoadingFinishedEvent;
+import org.miaixz.lancia.option.GoToOptions;
+import org.miaixz.lancia.worker.enums.CDPSessionEvent;
+import org.miaixz.lancia.worker.enums.FrameEvent;
+import org.miaixz.lancia.worker.enums.NetworkManagerType;
+import org.miaixz.lancia.worker.enums.PageEvaluateType;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * 导航的提前完成条件
+ * <p>
+ * 选择器出现、响应到达、页面函数返回真值、字节或时间预算用完，任意一个满足即完成。 选择器和页面函数在新文档提交后才开始等待，避免命中旧文档
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class EarlyCompletion {
+
+    private static final String SELECTOR_PREDICATE = "(selector) => document.querySelector(selector)";
+
+    private final CompletableFuture<String> reached = new CompletableFuture<>();
+    private final List<Disposable> disposables = new ArrayList<>();
+    private final List<WaitTask> waitTasks = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong bytes = new AtomicLong();
+    private final Frame frame;
+    private final GoToOptions options;
+    private Consumer<LoadingFinishedEvent> loadingFinishedListener;
+    private NetworkManager networkManager;
+
+    public EarlyCompletion(NetworkManager networkManager, Frame frame, GoToOptions options) {
+        this.frame = frame;
+        this.options = options;
+        if (options.getWaitForResponse() != null || options.getMaxBytes() > 0) {
+            // 精简模式下 Network 域可能没有开启，收不到响应和加载完成事件
+            this.networkManager = networkManager;
+            networkManager.acquire();
+        }
+        if (options.getWaitForResponse() != null) {
+            this.disposables.add(Builder.fromEmitterEvent(networkManager, NetworkManagerType.Response)
+                    .subscribe(response -> this.onResponse((Response) response)));
+        }
+        if (options.getMaxBytes() > 0) {
+            this.loadingFinishedListener = event -> {
+                if (this.bytes.addAndGet(event.getEncodedDataLength()) >= options.getMaxBytes()) {
+                    this.complete("maxBytes");
+                }
+            };
+            frame.getClient().on(CDPSessionEvent.Network_loadingFinished, this.loadingFinishedListener);
+        }
+        if (StringKit.isNotEmpty(options.getWaitForSelector()) || StringKit.isNotEmpty(options.getWaitForFunction())) {
+            this.disposables.add(Builder.fromEmitterEvent(frame, FrameEvent.FrameNavigated)
+                    .subscribe(ignore -> CompletableFuture.runAsync(this::startWaitTasks)));
+        }
+        if (options.getMaxTime() > 0) {
+            CompletableFuture.runAsync(() -> this.complete("maxTime"),
+                    CompletableFuture.delayedExecutor(options.getMaxTime(), TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * 是否设置了任意一个提前完成条件
+     */
+    public static boolean isRequested(GoToOptions options) {
+        return options != null && (StringKit.isNotEmpty(options.getWaitForSelector())
+                || StringKit.isNotEmpty(options.getWaitForFunction()) || options.getWaitForResponse() != null
+                || options.getMaxBytes() > 0 || options.getMaxTime() > 0);
+    }
+
+    /**
+     * @return 条件满足时完成，值为满足的条件名称
+     */
+    public CompletableFuture<String> future() {
+        return this.reached;
+    }
+
+    private void onResponse(Response response) {
+        if (this.reached.isDone()) {
+            return;
+        }
+        try {
+            if (this.options.getWaitForResponse().test(response)) {
+                this.complete("waitForResponse");
+            }
+        } catch (RuntimeException e) {
+            this.reached.completeExceptionally(e);
+        }
+    }
+
+    private void startWaitTasks() {
+        if (this.reached.isDone()) {
+            return;
+        }
+        // 每次跨文档导航都重新开始，上一次的任务属于已经离开的文档
+        this.cancelWaitTasks();
+        try {
+            if (StringKit.isNotEmpty(this.options.getWaitForSelector())) {
+                this.watch(new WaitTask(this.frame.getSecondaryWorld(), SELECTOR_PREDICATE, null,
+                        PageEvaluateType.FUNCTION, "selector \"" + this.options.getWaitForSelector() + "\"",
+                        "mutation", 0, Collections.singletonList(this.options.getWaitForSelector())), "waitForSelector");
+            }
+            if (StringKit.isNotEmpty(this.options.getWaitForFunction())) {
+                this.watch(new WaitTask(this.frame.getMainWorld(), this.options.getWaitForFunction(), null,
+                        PageEvaluateType.FUNCTION, "function", "raf", 0, null), "waitForFunction");
+            }
+        } catch (RuntimeException e) {
+            Logger.debug("Early completion wait task failed: {}", e.getMessage());
+        }
+    }
+
+    private void watch(WaitTask task, String condition) {
+        this.waitTasks.add(task);
+        task.future().whenComplete((handle, throwable) -> {
+            if (handle != null) {
+                handle.dispose(false);
+                this.complete(condition);
+            }
+        });
+        if (this.reached.isDone()) {
+            task.cancel();
+        }
+    }
+
+    private void complete(String condition) {
+        if (this.reached.complete(condition)) {
+            Logger.debug("Navigation of frame {} completed early by {}", this.frame.getId(), condition);
+        }
+    }
+
+    private void cancelWaitTasks() {
+        synchronized (this.waitTasks) {
+            this.waitTasks.forEach(WaitTask::cancel);
+            this.waitTasks.clear();
+        }
+    }
+
+    /**
+     * 取消所有监听和等待任务
+     */
+    public void dispose() {
+        this.reached.complete(null);
+        this.disposables.forEach(Disposable::dispose);
+        this.disposables.clear();
+        if (this.loadingFinishedListener != null) {
+            this.frame.getClient().off(CDPSessionEvent.Network_loadingFinished, this.loadingFinishedListener);
+        }
+        this.cancelWaitTasks();
+        synchronized (this) {
+            if (this.networkManager != null) {
+                this.networkManager.release();
+                this.networkManager = null;
+            }
+        }
+    }
+
+}
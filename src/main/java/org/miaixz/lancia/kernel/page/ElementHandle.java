@@ -62,6 +62,28 @@ import com.fasterxml.jackson.databind.JsonNode;
  */
 public class ElementHandle extends JSHandle {
 
+    /**
+     * 批量计算元素几何信息的函数
+     */
+    private static final String GEOMETRY_FUNCTION = "(styles, ...elements) => {\n"
+            + "  const vw = window.innerWidth, vh = window.innerHeight;\n"
+            + "  return elements.map(el => {\n"
+            + "    if (!el || !el.isConnected) return null;\n"
+            + "    const r = el.getBoundingClientRect();\n"
+            + "    const cs = getComputedStyle(el);\n"
+            + "    const left = Math.max(r.left, 0), top = Math.max(r.top, 0);\n"
+            + "    const right = Math.min(r.right, vw), bottom = Math.min(r.bottom, vh);\n"
+            + "    const intersecting = right > left && bottom > top;\n"
+            + "    const picked = {};\n"
+            + "    for (const name of styles) picked[name] = cs.getPropertyValue(name);\n"
+            + "    return { x: r.left, y: r.top, width: r.width, height: r.height,\n"
+            + "      visible: r.width > 0 && r.height > 0 && cs.visibility !== 'hidden' && cs.display !== 'none',\n"
+            + "      intersectingViewport: intersecting,\n"
+            + "      clickX: intersecting ? (left + right) / 2 : null, clickY: intersecting ? (top + bottom) / 2 : null,\n"
+            + "      styles: picked };\n"
+            + "  });\n"
+            + "}";
+
     private ExecutionContext context;
 
     private CDPSession client;
@@ -73,7 +95,12 @@ public class ElementHandle extends JSHandle {
 
     public ElementHandle(ExecutionContext context, CDPSession client, RemoteObject remoteObject, Page page,
             FrameManager frameManager) {
-        super(context, client, remoteObject);
+        this(context, client, remoteObject, page, frameManager, null);
+    }
+
+    ElementHandle(ExecutionContext context, CDPSession client, RemoteObject remoteObject, Page page,
+            FrameManager frameManager, HandleScope scope) {
+        super(context, client, remoteObject, scope);
         this.client = client;
         this.remoteObject = remoteObject;
         this.page = page;
@@ -452,6 +479,35 @@ public class ElementHandle extends JSHandle {
         return new Clip(x, y, width, height, 1);
     }
 
+    /**
+     * 批量取得多个元素的位置、可见性和计算样式，同一个执行上下文中的元素只需要一次协议往返
+     *
+     * @param handles 元素
+     * @param styles  需要的计算样式属性名，比如 color、font-size，可以为空
+     * @return 和 handles 一一对应，已经从文档中移除的元素对应 null
+     */
+    public static List<ElementGeometry> geometries(List<ElementHandle> handles, List<String> styles) {
+        List<ElementGeometry> result = new ArrayList<>(Collections.nCopies(handles.size(), null));
+        Map<ExecutionContext, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < handles.size(); i++) {
+            groups.computeIfAbsent(handles.get(i).executionContext(), k -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<ExecutionContext, List<Integer>> group : groups.entrySet()) {
+            List<Object> args = new ArrayList<>();
+            args.add(styles == null ? Collections.emptyList() : styles);
+            for (int index : group.getValue()) {
+                args.add(handles.get(index));
+            }
+            List<?> values = (List<?>) group.getKey().evaluate(GEOMETRY_FUNCTION, args);
+            for (int i = 0; i < group.getValue().size(); i++) {
+                Object value = values.get(i);
+                result.set(group.getValue().get(i),
+                        value == null ? null : Builder.OBJECTMAPPER.convertValue(value, ElementGeometry.class));
+            }
+        }
+        return result;
+    }
+
     public void uploadFile(List<String> filePaths) {
         boolean isMultiple = (Boolean) this.evaluate("(element) => element.multiple", new ArrayList<>());
         Assert.isTrue(filePaths.size() <= 1 || isMultiple,
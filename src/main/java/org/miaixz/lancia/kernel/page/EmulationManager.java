@@ -54,7 +54,7 @@ public class EmulationManager implements ClientProvider {
 
     private static final Updater<ViewportState> applyViewport = (client, viewportState) -> {
         if (viewportState.getViewport() == null) {
-            client.send("Emulation.setDeviceMetricsOverride");
+            client.send("Emulation.clearDeviceMetricsOverride");
             client.send("Emulation.setTouchEmulationEnabled", new HashMap<>() {
                 {
                     put("enabled", false);
@@ -94,17 +94,25 @@ public class ExecutionContext {
     }
 
     public Object evaluateHandle(String pageFunction, List<Object> args) {
-        return this.evaluateInternal(false, pageFunction,
+        return this.evaluateInternal(false, true, pageFunction,
+                Builder.isFunction(pageFunction) ? PageEvaluateType.FUNCTION : PageEvaluateType.STRING, args);
+    }
+
+    /**
+     * 内部缓存或者马上释放的句柄使用，不放入当前线程的句柄作用域，作用域关闭时不会被一起释放
+     */
+    Object evaluateHandleUnscoped(String pageFunction, List<Object> args) {
+        return this.evaluateInternal(false, false, pageFunction,
                 Builder.isFunction(pageFunction) ? PageEvaluateType.FUNCTION : PageEvaluateType.STRING, args);
     }
 
     public Object evaluate(String pageFunction, List<Object> args) {
-        return this.evaluateInternal(true, pageFunction,
+        return this.evaluateInternal(true, false, pageFunction,
                 Builder.isFunction(pageFunction) ? PageEvaluateType.FUNCTION : PageEvaluateType.STRING, args);
     }
 
-    private Object evaluateInternal(boolean returnByValue, String pageFunction, PageEvaluateType type,
-            List<Object> args) {
+    private Object evaluateInternal(boolean returnByValue, boolean scoped, String pageFunction,
+            PageEvaluateType type, List<Object> args) {
         String suffix = "//# sourceURL=" + ExecutionContext.EVALUATION_SCRIPT_URL;
         if (PageEvaluateType.STRING.equals(type)) {
             int contextId = this.contextId;
@@ -117,6 +125,7 @@ public class ExecutionContext {
             params.put("returnByValue", returnByValue);
             params.put("awaitPromise", true);
             params.put("userGesture", true);
+            HandleScope scope = scoped ? this.applyObjectGroup(params, returnByValue) : null;
             JsonNode result = this.client.send("Runtime.evaluate", params);
             JsonNode exceptionDetails = result.get("exceptionDetails");
             try {
@@ -124,7 +133,8 @@ public class ExecutionContext {
                     throw new RuntimeException("Evaluation failed: " + Builder.getExceptionMessage(
                             Builder.OBJECTMAPPER.treeToValue(exceptionDetails, ExceptionDetails.class)));
                 RemoteObject remoteObject = Builder.OBJECTMAPPER.treeToValue(result.get("result"), RemoteObject.class);
-                return returnByValue ? Builder.valueFromRemoteObject(remoteObject) : createJSHandle(this, remoteObject);
+                return returnByValue ? Builder.valueFromRemoteObject(remoteObject)
+                        : createJSHandle(this, remoteObject, scope);
             } catch (JsonProcessingException e) {
                 throw new RuntimeException(e);
             }
@@ -147,6 +157,7 @@ public class ExecutionContext {
         params.put("returnByValue", returnByValue);
         params.put("awaitPromise", true);
         params.put("userGesture", true);
+        HandleScope scope = scoped ? this.applyObjectGroup(params, returnByValue) : null;
         JsonNode callFunctionOnPromise;
         try {
             callFunctionOnPromise = this.client.send("Runtime.callFunctionOn", params);
@@ -169,7 +180,70 @@ public class ExecutionContext {
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
-        return returnByValue ? Builder.valueFromRemoteObject(remoteObject) : createJSHandle(this, remoteObject);
+        return returnByValue ? Builder.valueFromRemoteObject(remoteObject) : createJSHandle(this, remoteObject, scope);
+    }
+
+    /**
+     * 把函数安装到当前上下文中，返回函数对象的 objectId，之后可以通过 {@link #invoke} 直接调用，不用再发送函数源码
+     *
+     * @param pageFunction 函数源码
+     * @return 函数对象的 objectId
+     */
+    String install(String pageFunction) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("expression", "(" + pageFunction + ")\n//# sourceURL=" + EVALUATION_SCRIPT_URL);
+        params.put("contextId", this.contextId);
+        params.put("objectGroup", PageFunction.OBJECT_GROUP);
+        JsonNode result = this.client.send("Runtime.evaluate", params);
+        JsonNode exceptionDetails = result.get("exceptionDetails");
+        try {
+            if (exceptionDetails != null)
+                throw new ProtocolException("Compile failed: " + Builder.getExceptionMessage(
+                        Builder.OBJECTMAPPER.treeToValue(exceptionDetails, ExceptionDetails.class)));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+        JsonNode objectId = result.get("result").get("objectId");
+        Assert.isTrue(objectId != null && "function".equals(result.get("result").get("type").asText()),
+                "Expected a function, but got: " + pageFunction);
+        return objectId.asText();
+    }
+
+    /**
+     * 调用已经安装的函数
+     *
+     * @param functionId    {@link #install} 返回的 objectId
+     * @param returnByValue 是否按值返回
+     * @param args          函数参数
+     * @return 按值返回时是结果的值，否则是 JSHandle
+     */
+    Object invoke(String functionId, boolean returnByValue, List<Object> args) {
+        Map<String, Object> params = new HashMap<>();
+        List<Object> argList = new ArrayList<>();
+        if (CollKit.isNotEmpty(args)) {
+            for (Object arg : args) {
+                argList.add(convertArgument(this, arg));
+            }
+        }
+        params.put("functionDeclaration", "function(...args) { return this(...args); }");
+        params.put("objectId", functionId);
+        params.put("arguments", argList);
+        params.put("returnByValue", returnByValue);
+        params.put("awaitPromise", true);
+        params.put("userGesture", true);
+        HandleScope scope = this.applyObjectGroup(params, returnByValue);
+        JsonNode response = this.client.send("Runtime.callFunctionOn", params);
+        JsonNode exceptionDetails = response.get("exceptionDetails");
+        try {
+            if (exceptionDetails != null)
+                throw new ProtocolException("Evaluation failed: " + Builder.getExceptionMessage(
+                        Builder.OBJECTMAPPER.treeToValue(exceptionDetails, ExceptionDetails.class)));
+            RemoteObject remoteObject = Builder.OBJECTMAPPER.treeToValue(response.get("result"), RemoteObject.class);
+            return returnByValue ? Builder.valueFromRemoteObject(remoteObject)
+                    : createJSHandle(this, remoteObject, scope);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     public JSHandle queryObjects(JSHandle prototypeHandle) {
@@ -219,18 +293,39 @@ public class ExecutionContext {
         return objectNode.putPOJO("value", arg);
     }
 
+    /**
+     * 当前线程打开了句柄作用域时，返回的远程对象放入作用域的 objectGroup
+     *
+     * @return 命令实际使用了分组的作用域，没有时为 null
+     */
+    private HandleScope applyObjectGroup(Map<String, Object> params, boolean returnByValue) {
+        HandleScope scope = HandleScope.current();
+        if (scope == null || returnByValue) {
+            return null;
+        }
+        params.put("objectGroup", scope.group());
+        scope.use(this.client);
+        return scope;
+    }
+
     private JSHandle createJSHandle(ExecutionContext executionContext, RemoteObject remoteObject) {
         return JSHandle.createJSHandle(executionContext, remoteObject);
     }
 
+    private JSHandle createJSHandle(ExecutionContext executionContext, RemoteObject remoteObject,
+            HandleScope scope) {
+        return JSHandle.createJSHandle(executionContext, remoteObject, scope);
+    }
+
     public ElementHandle adoptBackendNodeId(int backendNodeId) {
         Map<String, Object> params = new HashMap<>();
         params.put("backendNodeId", backendNodeId);
         params.put("executionContextId", this.contextId);
+        HandleScope scope = this.applyObjectGroup(params, false);
         JsonNode object = this.client.send("DOM.resolveNode", params);
         try {
             return (ElementHandle) createJSHandle(this,
-                    Builder.OBJECTMAPPER.treeToValue(object.get("object"), RemoteObject.class));
+                    Builder.OBJECTMAPPER.treeToValue(object.get("object"), RemoteObject.class), scope);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,178 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.miaixz.bus.core.lang.Assert;
+import org.miaixz.bus.core.xyz.StringKit;
+
+/**
+ * 声明式的批量数据提取
+ * <p>
+ * 用选择器和字段描述要提取的数据，整个描述作为参数在一次 Runtime.callFunctionOn 中执行并按值返回，不会创建任何 ElementHandle
+ *
+ * <pre>
+ * Extraction products = Extraction.of(".product").text("title", ".name").attribute("url", "a", "href")
+ *         .list("tags", Extraction.of(".tag").text("name"));
+ * </pre>
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class Extraction {
+
+    /**
+     * 在页面中执行的提取函数，参数为 {@link #toMap()} 的结果
+     */
+    public static final String FUNCTION = "(spec) => {\n"
+            + "  const value = (el, f) => {\n"
+            + "    switch (f.type) {\n"
+            + "      case 'text': return el.textContent == null ? null : el.textContent.trim();\n"
+            + "      case 'html': return el.innerHTML;\n"
+            + "      case 'attribute': return el.getAttribute(f.key);\n"
+            + "      case 'property': { const v = el[f.key]; return v === undefined ? null : v; }\n"
+            + "    }\n"
+            + "    return null;\n"
+            + "  };\n"
+            + "  const row = (el, fields) => {\n"
+            + "    const out = {};\n"
+            + "    for (const f of fields) {\n"
+            + "      if (f.type === 'list') { out[f.name] = rows(el, f.extraction); continue; }\n"
+            + "      const target = f.selector ? el.querySelector(f.selector) : el;\n"
+            + "      if (!target) { out[f.name] = null; continue; }\n"
+            + "      out[f.name] = f.type === 'object' ? row(target, f.extraction.fields) : value(target, f);\n"
+            + "    }\n"
+            + "    return out;\n"
+            + "  };\n"
+            + "  const rows = (root, s) => Array.from(s.selector ? root.querySelectorAll(s.selector) : [root])\n"
+            + "      .map(el => row(el, s.fields));\n"
+            + "  return rows(document, spec);\n"
+            + "}";
+
+    private final String selector;
+    private final List<Map<String, Object>> fields = new ArrayList<>();
+
+    private Extraction(String selector) {
+        this.selector = selector;
+    }
+
+    /**
+     * 提取所有匹配选择器的元素，每个元素对应结果中的一行
+     *
+     * @param selector css选择器，在嵌套的 list 中相对于上一级元素
+     * @return 提取描述
+     */
+    public static Extraction of(String selector) {
+        return new Extraction(selector);
+    }
+
+    /**
+     * 元素本身的 textContent，去掉首尾空白
+     */
+    public Extraction text(String name) {
+        return this.text(name, null);
+    }
+
+    /**
+     * 第一个匹配子选择器的元素的 textContent，去掉首尾空白
+     */
+    public Extraction text(String name, String selector) {
+        return this.field(name, "text", selector, null, null);
+    }
+
+    /**
+     * 第一个匹配子选择器的元素的 innerHTML
+     */
+    public Extraction html(String name, String selector) {
+        return this.field(name, "html", selector, null, null);
+    }
+
+    /**
+     * 第一个匹配子选择器的元素的属性值
+     */
+    public Extraction attribute(String name, String selector, String attribute) {
+        return this.field(name, "attribute", selector, attribute, null);
+    }
+
+    /**
+     * 第一个匹配子选择器的元素的 DOM 属性值，比如 value、checked，值需要可以序列化成json
+     */
+    public Extraction property(String name, String selector, String property) {
+        return this.field(name, "property", selector, property, null);
+    }
+
+    /**
+     * 嵌套的列表，选择器相对于当前元素
+     */
+    public Extraction list(String name, Extraction extraction) {
+        return this.field(name, "list", null, null, extraction);
+    }
+
+    /**
+     * 嵌套的对象，字段取自第一个匹配子选择器的元素，extraction 的选择器会被忽略
+     */
+    public Extraction object(String name, String selector, Extraction extraction) {
+        return this.field(name, "object", selector, null, extraction);
+    }
+
+    private Extraction field(String name, String type, String selector, String key, Extraction extraction) {
+        Assert.isTrue(StringKit.isNotEmpty(name), "name must not be empty");
+        Map<String, Object> field = new HashMap<>();
+        field.put("name", name);
+        field.put("type", type);
+        field.put("selector", selector);
+        field.put("key", key);
+        field.put("extraction", extraction);
+        this.fields.add(field);
+        return this;
+    }
+
+    /**
+     * 转成传给 {@link #FUNCTION} 的参数
+     *
+     * @return 描述
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> spec = new HashMap<>();
+        spec.put("selector", this.selector);
+        List<Map<String, Object>> fields = new ArrayList<>();
+        for (Map<String, Object> field : this.fields) {
+            Map<String, Object> copy = new HashMap<>(field);
+            Object extraction = copy.get("extraction");
+            copy.put("extraction", extraction == null ? null : ((Extraction) extraction).toMap());
+            fields.add(copy);
+        }
+        spec.put("fields", fields);
+        return spec;
+    }
+
+}
@@ -28,8 +28,11 @@
 package org.miaixz.lancia.kernel.page;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
@@ -127,6 +130,18 @@ public class Frame extends Emitter<FrameEvent> {
         return this.mainWorld.evaluate(pageFunction, args);
     }
 
+    /**
+     * 在一次 Runtime.callFunctionOn 中按值返回提取结果
+     *
+     * @param extraction 提取描述
+     * @return 每个匹配元素对应一行
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> extract(Extraction extraction) {
+        Object result = this.mainWorld.evaluate(Extraction.FUNCTION, Collections.singletonList(extraction.toMap()));
+        return result == null ? new ArrayList<>() : (List<Map<String, Object>>) result;
+    }
+
     public ElementHandle $(String selector) {
         return this.mainWorld.$(selector);
     }
@@ -71,6 +71,7 @@ public class FrameManager extends Emitter<FrameManagerType> {
     private static final String UTILITY_WORLD_NAME = "__puppeteer_utility_world__";
     private final TimeoutSettings timeoutSettings;
     private final NetworkManager networkManager;
+    private final WaitEngine waitEngine = new WaitEngine(UTILITY_WORLD_NAME);
     private final Map<String, Frame> frames;
     private final Map<Integer, ExecutionContext> contextIdToContext;
     private final Set<String> isolatedWorlds;
@@ -215,9 +216,11 @@ public class FrameManager extends Emitter<FrameManagerType> {
     }
 
     public void initialize() {
-        this.client.send("Page.enable");
+        // Page.enable 和 Page.getFrameTree 一起发出，frame 树处理完之后再开启其余的域，避免丢失执行上下文
+        CompletableFuture<JsonNode> pageEnabled = this.client.sendAsync("Page.enable", null);
         /* @type Protocol.Page.getFrameTreeReturnValue */
         JsonNode result = this.client.send("Page.getFrameTree");
+        Builder.await(pageEnabled);
 
         FrameTree frameTree;
         try {
@@ -227,30 +230,35 @@ public class FrameManager extends Emitter<FrameManagerType> {
         }
         this.handleFrameTree(frameTree);
 
+        List<CompletableFuture<JsonNode>> pending = new ArrayList<>();
         Map<String, Object> params = new HashMap<>();
         params.put("enabled", true);
-        this.client.send("Page.setLifecycleEventsEnabled", params);
-        this.client.send("Runtime.enable");
-        this.ensureIsolatedWorld(UTILITY_WORLD_NAME);
-        this.networkManager.initialize();
-
+        pending.add(this.client.sendAsync("Page.setLifecycleEventsEnabled", params));
+        pending.add(this.client.sendAsync("Runtime.enable", null));
+        pending.addAll(this.ensureIsolatedWorldAsync(UTILITY_WORLD_NAME));
+        if (!this.page.isLean()) {
+            pending.add(this.networkManager.initializeAsync());
+        }
+        pending.forEach(Builder::await);
     }
 
-    private void ensureIsolatedWorld(String name) {
+    private List<CompletableFuture<JsonNode>> ensureIsolatedWorldAsync(String name) {
+        List<CompletableFuture<JsonNode>> pending = new ArrayList<>();
         if (this.isolatedWorlds.contains(name))
-            return;
+            return pending;
         this.isolatedWorlds.add(name);
         Map<String, Object> params = new HashMap<>();
         params.put("source", "//# sourceURL=" + ExecutionContext.EVALUATION_SCRIPT_URL);
         params.put("worldName", name);
-        this.client.send("Page.addScriptToEvaluateOnNewDocument", params);
+        pending.add(this.client.sendAsync("Page.addScriptToEvaluateOnNewDocument", params));
         this.frames().forEach(frame -> {
             Map<String, Object> param = new HashMap<>();
             param.put("frameId", frame.getId());
             param.put("grantUniveralAccess", true);
             param.put("worldName", name);
-            this.client.send("Page.createIsolatedWorld", param);
+            pending.add(this.client.sendAsync("Page.createIsolatedWorld", param));
         });
+        return pending;
     }
 
     private void handleFrameTree(FrameTree frameTree) {
@@ -414,7 +422,10 @@ public class FrameManager extends Emitter<FrameManagerType> {
         }
         AtomicBoolean ensureNewDocumentNavigation = new AtomicBoolean(false);
         LifecycleWatcher watcher = new LifecycleWatcher(frame.getFrameManager().getNetworkManager(), frame, waitUntil,
-                timeout);
+                timeout, options == null ? null : options.getNetworkIdle());
+        EarlyCompletion earlyCompletion = EarlyCompletion.isRequested(options)
+                ? new EarlyCompletion(frame.getFrameManager().getNetworkManager(), frame, options)
+                : null;
         try {
             String finalReferrer = referrer;
             String finalRefererPolicy = refererPolicy;
@@ -424,7 +435,7 @@ public class FrameManager extends Emitter<FrameManagerType> {
             });
             CompletableFuture<Void> terminationFuture = CompletableFuture.runAsync(watcher::waitForTermination);
             CompletableFuture<Object> anyOfFuture1 = CompletableFuture.anyOf(navigateFuture, terminationFuture);
-            anyOfFuture1.whenComplete((ignore, throwable1) -> {
+            CompletableFuture<Object> lifecycleFuture = anyOfFuture1.whenComplete((ignore, throwable1) -> {
                 if (throwable1 == null) {// 没有出错就是LifecycleWatcher没有接收到termination事件,那就看看是newDocumentNavigation还是sameDocumentNavigation,并等待它完成
                     CompletableFuture<Void> documentNavigationFuture = CompletableFuture.runAsync(() -> {
                         if (ensureNewDocumentNavigation.get()) {
@@ -443,10 +454,21 @@ public class FrameManager extends Emitter<FrameManagerType> {
                     anyOfFuture2.join();
                 }
             });
-            // 等待页面导航事件或者是页面termination事件完成
-            anyOfFuture1.join();
+            if (earlyCompletion == null) {
+                // 等待页面导航事件或者是页面termination事件完成
+                anyOfFuture1.join();
+                return watcher.navigationResponse();
+            }
+            // 生命周期和提前完成条件谁先到就以谁为准
+            CompletableFuture.anyOf(lifecycleFuture, earlyCompletion.future()).join();
+            if (!lifecycleFuture.isDone() && earlyCompletion.future().getNow(null) != null && options.isStopLoading()) {
+                frame.getClient().send("Page.stopLoading", null, null, false);
+            }
             return watcher.navigationResponse();
         } finally {
+            if (earlyCompletion != null) {
+                earlyCompletion.dispose();
+            }
             watcher.dispose();
         }
     }
@@ -502,7 +524,7 @@ public class FrameManager extends Emitter<FrameManagerType> {
             ignoreSameDocumentNavigation = options.isIgnoreSameDocumentNavigation();
         }
         LifecycleWatcher watcher = new LifecycleWatcher(frame.getFrameManager().getNetworkManager(), frame, waitUntil,
-                timeout);
+                timeout, options == null ? null : options.getNetworkIdle());
         AtomicReference<Response> result = new AtomicReference<>();
         try {
             CompletableFuture<Void> terminationFuture = CompletableFuture.runAsync(() -> {
@@ -556,4 +578,9 @@ public class FrameManager extends Emitter<FrameManagerType> {
         return this.networkManager;
     }
 
+
+    public WaitEngine waitEngine() {
+        return this.waitEngine;
+    }
+
 }
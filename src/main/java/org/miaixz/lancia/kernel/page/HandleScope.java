@@ -0,0 +1,146 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.miaixz.lancia.socket.CDPSession;
+
+/**
+ * 句柄作用域
+ * <p>
+ * 作用域打开期间，当前线程上创建的 JSHandle 都放在同一个 objectGroup 中，关闭时通过一次 Runtime.releaseObjectGroup 全部释放，
+ * 不需要逐个调用 dispose。作用域可以嵌套，关闭时恢复外层的作用域
+ *
+ * <pre>
+ * try (HandleScope scope = page.openHandleScope()) {
+ *     List&lt;ElementHandle&gt; rows = page.$$("tr");
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class HandleScope implements AutoCloseable {
+
+    private static final ThreadLocal<HandleScope> CURRENT = new ThreadLocal<>();
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private final String group;
+    private final HandleScope parent;
+    private final Set<CDPSession> clients = new LinkedHashSet<>();
+    private final List<JSHandle> handles = new ArrayList<>();
+    private boolean closed;
+
+    private HandleScope(HandleScope parent) {
+        this.group = "lancia-scope-" + COUNTER.incrementAndGet();
+        this.parent = parent;
+    }
+
+    /**
+     * 在当前线程上打开一个作用域
+     *
+     * @return 作用域
+     */
+    public static HandleScope open() {
+        HandleScope scope = new HandleScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * 当前线程上的作用域
+     *
+     * @return 没有打开的作用域时为 null
+     */
+    public static HandleScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 协议命令中使用的 objectGroup
+     *
+     * @return 分组名
+     */
+    public String group() {
+        return this.group;
+    }
+
+    /**
+     * 记录请求中使用了本分组的会话，关闭时在这些会话上释放分组
+     */
+    synchronized void use(CDPSession client) {
+        this.clients.add(client);
+    }
+
+    synchronized void adopt(JSHandle handle) {
+        this.handles.add(handle);
+    }
+
+    /**
+     * 释放作用域内的所有远程对象，并把对应的句柄标记为已释放
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            for (JSHandle handle : this.handles) {
+                handle.setDisposed(true);
+            }
+            this.handles.clear();
+            Map<String, Object> params = new HashMap<>();
+            params.put("objectGroup", this.group);
+            for (CDPSession client : this.clients) {
+                try {
+                    client.send("Runtime.releaseObjectGroup", params, null, false);
+                } catch (Exception e) {
+                    // 页面已经关闭或者导航，远程对象已经不存在
+                }
+            }
+            this.clients.clear();
+        }
+        if (CURRENT.get() == this) {
+            if (this.parent != null) {
+                CURRENT.set(this.parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.miaixz.bus.logger.Logger;
+import org.miaixz.lancia.option.InterceptionOptions;
+
+/**
+ * 请求拦截处理管线
+ * <p>
+ * Fetch.requestPaused 在连接的读线程上到达，处理器如果在读线程上同步调用 continueRequest 等方法， 就要等待同一个读线程送来的回复。这里把处理器交给有界的工作线程池并行执行，
+ * 每个请求都有决策期限，期限内没有处理的请求默认放行
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class InterceptionPipeline {
+
+    /**
+     * 决策期限的计时器
+     */
+    private static final ScheduledExecutorService DEADLINE_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "lancia-interception-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile InterceptionPipeline shared;
+
+    private final ThreadPoolExecutor executor;
+    private final int decisionTimeout;
+
+    public InterceptionPipeline(InterceptionOptions options) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(options.getWorkers(), options.getWorkers(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, options.getQueueCapacity())), r -> {
+                    Thread thread = new Thread(r, "lancia-interception-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.decisionTimeout = options.getDecisionTimeout();
+    }
+
+    /**
+     * 没有单独配置的页面共用的管线
+     */
+    public static InterceptionPipeline shared() {
+        if (shared == null) {
+            synchronized (InterceptionPipeline.class) {
+                if (shared == null) {
+                    shared = new InterceptionPipeline(new InterceptionOptions());
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * 在工作线程中执行处理器，并开始计算决策期限
+     *
+     * @param request 拦截到的请求
+     * @param handler 分发请求事件的处理器
+     */
+    public void dispatch(Request request, Runnable handler) {
+        ScheduledFuture<?> deadline = this.decisionTimeout > 0 ? DEADLINE_TIMER.schedule(() -> {
+            if (request.continueIfUnhandled()) {
+                Logger.warn("Request interception decision timed out after {}ms, continue {}", this.decisionTimeout,
+                        request.url());
+            }
+        }, this.decisionTimeout, TimeUnit.MILLISECONDS) : null;
+        try {
+            this.executor.execute(() -> {
+                try {
+                    handler.run();
+                } catch (RuntimeException e) {
+                    Logger.error("lancia error:", e);
+                    if (request.continueIfUnhandled() && deadline != null) {
+                        deadline.cancel(false);
+                    }
+                    return;
+                }
+                if (request.isInterceptionHandled() && deadline != null) {
+                    deadline.cancel(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 队列已满，不能让读线程等待，直接放行，处理器仍然会在公共线程池中收到这个请求
+            Logger.warn("Request interception queue is full, continue {}", request.url());
+            request.continueIfUnhandled();
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            CompletableFuture.runAsync(handler).exceptionally(ex -> {
+                Logger.debug("Request handler failed after the request was continued: {}", ex.getMessage());
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 停止工作线程，等待中的请求不再处理
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+}
@@ -27,6 +27,7 @@
 */
 package org.miaixz.lancia.kernel.page;
 
+import java.lang.ref.Cleaner;
 import java.util.*;
 
 import org.miaixz.bus.core.xyz.StringKit;
@@ -50,21 +51,50 @@ public class JSHandle {
 
     private RemoteObject remoteObject;
 
+    private static final Cleaner CLEANER = Cleaner.create();
+
     private boolean disposed = false;
 
+    /**
+     * 不在作用域中的句柄，Java 对象被回收而没有调用 dispose 时由它释放远程对象
+     */
+    private final Releaser releaser;
+
+    private Cleaner.Cleanable cleanable;
+
     public JSHandle(ExecutionContext context, CDPSession client, RemoteObject remoteObject) {
+        this(context, client, remoteObject, null);
+    }
+
+    /**
+     * @param scope 远程对象所在 objectGroup 对应的作用域，命令没有带分组时为 null
+     */
+    JSHandle(ExecutionContext context, CDPSession client, RemoteObject remoteObject, HandleScope scope) {
         this.context = context;
         this.client = client;
         this.remoteObject = remoteObject;
+        this.releaser = new Releaser(client, remoteObject);
+        if (remoteObject != null && StringKit.isNotEmpty(remoteObject.getObjectId())) {
+            if (scope != null) {
+                scope.adopt(this);
+            } else {
+                this.cleanable = CLEANER.register(this, this.releaser);
+            }
+        }
     }
 
     public static JSHandle createJSHandle(ExecutionContext context, RemoteObject remoteObject) {
+        return createJSHandle(context, remoteObject, null);
+    }
+
+    static JSHandle createJSHandle(ExecutionContext context, RemoteObject remoteObject, HandleScope scope) {
         Frame frame = context.frame();
         if ("node".equals(remoteObject.getSubtype()) && frame != null) {
             FrameManager frameManager = frame.getFrameManager();
-            return new ElementHandle(context, context.getClient(), remoteObject, frameManager.getPage(), frameManager);
+            return new ElementHandle(context, context.getClient(), remoteObject, frameManager.getPage(), frameManager,
+                    scope);
         }
-        return new JSHandle(context, context.getClient(), remoteObject);
+        return new JSHandle(context, context.getClient(), remoteObject, scope);
     }
 
     public ExecutionContext executionContext() {
@@ -156,6 +186,10 @@ public class JSHandle {
         if (this.disposed)
             return;
         this.disposed = true;
+        this.releaser.released = true;
+        if (this.cleanable != null) {
+            this.cleanable.clean();
+        }
         Builder.releaseObject(this.client, this.remoteObject, isBlock);
     }
 
@@ -182,10 +216,38 @@ public class JSHandle {
 
     protected void setDisposed(boolean disposed) {
         this.disposed = disposed;
+        if (disposed) {
+            this.releaser.released = true;
+        }
     }
 
     public RemoteObject getRemoteObject() {
         return remoteObject;
     }
 
+    /**
+     * 只持有会话和远程对象，不能引用句柄本身，否则句柄永远不会被回收
+     */
+    private static class Releaser implements Runnable {
+
+        private final CDPSession client;
+        private final RemoteObject remoteObject;
+        private volatile boolean released;
+
+        Releaser(CDPSession client, RemoteObject remoteObject) {
+            this.client = client;
+            this.remoteObject = remoteObject;
+        }
+
+        @Override
+        public void run() {
+            if (this.released) {
+                return;
+            }
+            this.released = true;
+            Builder.releaseObject(this.client, this.remoteObject, false);
+        }
+
+    }
+
 }
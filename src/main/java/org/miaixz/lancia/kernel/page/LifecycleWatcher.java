@@ -29,11 +29,19 @@ package org.miaixz.lancia.kernel.page;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 import org.miaixz.bus.core.lang.exception.InternalException;
 import org.miaixz.bus.core.xyz.CollKit;
 import org.miaixz.lancia.Builder;
+import org.miaixz.lancia.option.data.NetworkIdleOptions;
 import org.miaixz.lancia.worker.enums.FrameEvent;
 import org.miaixz.lancia.worker.enums.FrameManagerType;
 import org.miaixz.lancia.worker.enums.NetworkManagerType;
@@ -63,23 +71,67 @@ public class LifecycleWatcher {
     private boolean hasSameDocumentNavigation;
     private boolean swapped = false;
 
+    /**
+     * 客户端网络空闲判断的计时器
+     */
+    private static final ScheduledExecutorService IDLE_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "lancia-network-idle");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private NetworkManager networkManager;
+    private NetworkIdleOptions networkIdle;
+    private int maxInflight;
+    private final List<Pattern> ignoreUrls = new ArrayList<>();
+    private final Set<String> inflight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong idleGeneration = new AtomicLong();
+    private volatile boolean networkIdleReached;
+    /**
+     * 新文档提交之后才开始计算空闲，否则导航请求还没返回时旧文档就可能被当成空闲
+     */
+    private volatile boolean networkIdleArmed;
+    private ScheduledFuture<?> idleTimer;
+
     public LifecycleWatcher() {
         super();
     }
 
     public LifecycleWatcher(NetworkManager networkManager, Frame frame, List<PuppeteerLifeCycle> waitUntil,
             int timeout) {
+        this(networkManager, frame, waitUntil, timeout, null);
+    }
+
+    /**
+     * @param networkIdle 不为空时使用客户端的网络空闲判断代替 Chrome 的 networkIdle 事件
+     */
+    public LifecycleWatcher(NetworkManager networkManager, Frame frame, List<PuppeteerLifeCycle> waitUntil,
+            int timeout, NetworkIdleOptions networkIdle) {
         super();
         this.frame = frame;
+        // 只有等待网络空闲时才使用客户端的判断
+        boolean idle = waitUntil.contains(PuppeteerLifeCycle.NETWORKIDLE);
+        boolean almostIdle = waitUntil.contains(PuppeteerLifeCycle.NETWORKIDLE2);
+        this.networkIdle = idle || almostIdle ? networkIdle : null;
+        if (this.networkIdle != null) {
+            // networkidle2 允许最多2个请求，同时等待两者时以更严格的 networkidle 为准
+            this.maxInflight = !idle && networkIdle.getMaxInflight() <= 0 ? 2 : networkIdle.getMaxInflight();
+        }
+        if (this.networkIdle != null && networkIdle.getIgnoreUrlPatterns() != null) {
+            networkIdle.getIgnoreUrlPatterns().forEach(pattern -> this.ignoreUrls.add(Pattern.compile(pattern)));
+        }
         this.initialLoaderId = frame.getLoaderId();
         this.timeout = timeout;
         waitUntil.forEach(value -> {
             if (PuppeteerLifeCycle.DOMCONTENTLOADED.equals(value)) {
                 this.expectedLifecycle.add("DOMContentLoaded");
             } else if (PuppeteerLifeCycle.NETWORKIDLE.equals(value)) {
-                this.expectedLifecycle.add("networkIdle");
+                if (this.networkIdle == null) {
+                    this.expectedLifecycle.add("networkIdle");
+                }
             } else if (PuppeteerLifeCycle.NETWORKIDLE2.equals(value)) {
-                this.expectedLifecycle.add("networkAlmostIdle");
+                if (this.networkIdle == null) {
+                    this.expectedLifecycle.add("networkAlmostIdle");
+                }
             } else if (PuppeteerLifeCycle.LOAD.equals(value)) {
                 this.expectedLifecycle.add("load");
             } else {
@@ -104,10 +156,89 @@ public class LifecycleWatcher {
                 .subscribe((request) -> this.onRequestFailed((Request) request)));
         this.disposables.add(Builder.fromEmitterEvent(networkManager, NetworkManagerType.Response)
                 .subscribe((request) -> this.onResponse((Response) request)));
+        if (this.networkIdle != null) {
+            // 精简模式下 Network 域可能没有开启，没有请求事件就无法判断空闲
+            this.networkManager = networkManager;
+            networkManager.acquire();
+            this.disposables.add(Builder.fromEmitterEvent(networkManager, NetworkManagerType.RequestFinished)
+                    .subscribe((request) -> this.onRequestDone((Request) request)));
+        }
         this.checkLifecycleComplete();
     }
 
+    /**
+     * 请求开始，计入正在进行的请求
+     */
+    private void onRequestStarted(Request request) {
+        if (this.networkIdle == null || this.isIgnored(request)) {
+            return;
+        }
+        this.inflight.add(request.requestId());
+        this.resetNetworkIdle();
+    }
+
+    private void onRequestDone(Request request) {
+        if (this.networkIdle != null && this.inflight.remove(request.requestId())) {
+            this.resetNetworkIdle();
+        }
+    }
+
+    private boolean isIgnored(Request request) {
+        List<String> types = this.networkIdle.getIgnoreResourceTypes();
+        if (types != null && request.resourceType() != null) {
+            for (String type : types) {
+                if (type.equalsIgnoreCase(request.resourceType())) {
+                    return true;
+                }
+            }
+        }
+        for (Pattern pattern : this.ignoreUrls) {
+            if (pattern.matcher(request.url()).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 网络活动发生变化，重新开始计算空闲时间
+     */
+    private synchronized void resetNetworkIdle() {
+        this.networkIdleReached = false;
+        long generation = this.idleGeneration.incrementAndGet();
+        if (this.idleTimer != null) {
+            this.idleTimer.cancel(false);
+            this.idleTimer = null;
+        }
+        if (!this.networkIdleArmed || this.inflight.size() > this.maxInflight) {
+            return;
+        }
+        this.idleTimer = IDLE_TIMER.schedule(() -> {
+            if (generation == this.idleGeneration.get()) {
+                this.networkIdleReached = true;
+                this.checkLifecycleComplete();
+            }
+        }, this.networkIdle.getIdleTime(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 文档已经提交，开始计算空闲时间
+     *
+     * @param newDocument 是否提交了新文档，新文档时之前的请求属于旧文档，不再计入
+     */
+    private synchronized void armNetworkIdle(boolean newDocument) {
+        if (this.networkIdle == null) {
+            return;
+        }
+        if (newDocument) {
+            this.inflight.clear();
+        }
+        this.networkIdleArmed = true;
+        this.resetNetworkIdle();
+    }
+
     private void onRequestFailed(Request request) {
+        this.onRequestDone(request);
         if (this.navigationRequest != null) {
             if (!this.navigationRequest.requestId().equals(request.requestId())) {
                 return;
@@ -146,11 +277,19 @@ public class LifecycleWatcher {
             this.frameSwapped();
             return;
         }
+        if (this.networkIdle != null) {
+            if (!this.frame.getLoaderId().equals(this.initialLoaderId)) {
+                this.armNetworkIdle(true);
+            } else {
+                this.resetNetworkIdle();
+            }
+        }
         this.checkLifecycleComplete();
     }
 
     private void frameSwapped() {
         this.swapped = true;
+        this.armNetworkIdle(true);
         this.checkLifecycleComplete();
     }
 
@@ -163,6 +302,7 @@ public class LifecycleWatcher {
     }
 
     private void onRequest(Request request) {
+        this.onRequestStarted(request);
         if (!request.frame().equals(this.frame) || !request.isNavigationRequest())
             return;
         this.navigationRequest = request;
@@ -179,6 +319,7 @@ public class LifecycleWatcher {
 
     public void navigatedWithinDocument() {
         this.hasSameDocumentNavigation = true;
+        this.armNetworkIdle(false);
         this.checkLifecycleComplete();
     }
 
@@ -186,6 +327,8 @@ public class LifecycleWatcher {
         // We expect navigation to commit.
         if (!checkLifecycle(this.frame, this.expectedLifecycle))
             return;
+        if (this.networkIdle != null && !this.networkIdleReached)
+            return;
         this.lifecycleSubject.onSuccess(true);
         if (this.hasSameDocumentNavigation)
             this.sameDocumentNavigationSubject.onSuccess(true);
@@ -224,6 +367,16 @@ public class LifecycleWatcher {
 
     public void dispose() {
         this.disposables.forEach(Disposable::dispose);
+        synchronized (this) {
+            this.idleGeneration.incrementAndGet();
+            if (this.idleTimer != null) {
+                this.idleTimer.cancel(false);
+            }
+            if (this.networkManager != null) {
+                this.networkManager.release();
+                this.networkManager = null;
+            }
+        }
         this.terminationSubject.onSuccess(new InternalException("LifecycleWatcher disposed"));
         if (!this.lifecycleSubject.hasValue()) {
             this.lifecycleSubject.onSuccess(true);
@@ -0,0 +1,275 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.miaixz.bus.core.lang.exception.InternalException;
+import org.miaixz.bus.core.xyz.StringKit;
+import org.miaixz.lancia.Builder;
+import org.miaixz.lancia.nimble.fetch.HeaderEntry;
+import org.miaixz.lancia.option.ArchiveOptions;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 网络记录的回放
+ * <p>
+ * 记录文件由 {@link NetworkRecorder} 写入，打开时整个文件只读映射到内存，堆上只保留索引和响应头，
+ * 响应体在回放时才从映射中读取。同一个请求有多条记录时按记录顺序依次返回，最后一条重复使用
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class NetworkArchive implements Closeable {
+
+    /**
+     * 文件头，"LNAR" 加上格式版本
+     */
+    static final int MAGIC = 0x4C4E4152;
+    static final int VERSION = 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final ArchiveOptions options;
+    private final Map<String, List<Entry>> index = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+
+    private NetworkArchive(FileChannel channel, MappedByteBuffer buffer, ArchiveOptions options) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.options = options;
+    }
+
+    /**
+     * 打开记录文件
+     *
+     * @param path    记录文件
+     * @param options 匹配选项，为 null 时使用默认选项
+     * @return 回放使用的记录
+     * @throws IOException 读取文件失败
+     */
+    public static NetworkArchive open(Path path, ArchiveOptions options) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new InternalException("Network archive is larger than 2GB: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            NetworkArchive archive = new NetworkArchive(channel, buffer,
+                    options == null ? new ArchiveOptions() : options);
+            archive.load(path);
+            return archive;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void load(Path path) throws IOException {
+        ByteBuffer view = this.buffer.duplicate();
+        if (view.remaining() < 8 || view.getInt() != MAGIC || view.getInt() != VERSION) {
+            throw new InternalException("Not a network archive: " + path);
+        }
+        // 记录过程中被中断时最后一条可能不完整，读到这里为止
+        while (view.remaining() >= 4) {
+            int metaLength = view.getInt();
+            if (metaLength < 0 || view.remaining() < metaLength + 4) {
+                break;
+            }
+            byte[] meta = new byte[metaLength];
+            view.get(meta);
+            int bodyLength = view.getInt();
+            if (bodyLength < 0 || view.remaining() < bodyLength) {
+                break;
+            }
+            int bodyOffset = view.position();
+            view.position(bodyOffset + bodyLength);
+            JsonNode node = Builder.OBJECTMAPPER.readTree(meta);
+            List<HeaderEntry> headers = new ArrayList<>();
+            node.get("headers").fields()
+                    .forEachRemaining(field -> headers.add(new HeaderEntry(field.getKey(), field.getValue().asText())));
+            Entry entry = new Entry(node.get("status").asInt(), headers, bodyOffset, bodyLength);
+            String key = this.key(node.get("method").asText(), node.get("url").asText(), node.get("bodyHash").asText());
+            this.index.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    /**
+     * 查找匹配的记录
+     *
+     * @param method   请求方法
+     * @param url      请求地址
+     * @param postData 请求体，没有时为 null
+     * @return 匹配的记录，没有时为 null
+     */
+    public Entry find(String method, String url, String postData) {
+        String key = this.key(method, url, hash(postData));
+        List<Entry> entries = this.index.get(key);
+        if (entries == null) {
+            return null;
+        }
+        int cursor = this.cursors.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+        return entries.get(Math.min(cursor, entries.size() - 1));
+    }
+
+    /**
+     * 没有匹配的记录时是否继续访问网络
+     */
+    public boolean isFallthrough() {
+        return this.options.isFallthrough();
+    }
+
+    /**
+     * 记录的条数
+     */
+    public int size() {
+        return this.index.values().stream().mapToInt(List::size).sum();
+    }
+
+    private String key(String method, String url, String bodyHash) {
+        return (this.options.isMatchMethod() ? method.toUpperCase(Locale.ROOT) : "*") + " " + this.normalize(url)
+                + (this.options.isMatchBody() ? " " + bodyHash : "");
+    }
+
+    private String normalize(String url) {
+        int hash = url.indexOf('#');
+        if (hash >= 0) {
+            url = url.substring(0, hash);
+        }
+        int question = url.indexOf('?');
+        if (question < 0) {
+            return url;
+        }
+        String base = url.substring(0, question);
+        if (!this.options.isMatchQuery()) {
+            return base;
+        }
+        List<String> params = new ArrayList<>();
+        for (String param : url.substring(question + 1).split("&")) {
+            if (param.isEmpty()) {
+                continue;
+            }
+            int equals = param.indexOf('=');
+            String name = equals < 0 ? param : param.substring(0, equals);
+            if (this.options.getIgnoreQueryParams() == null || !this.options.getIgnoreQueryParams().contains(name)) {
+                params.add(param);
+            }
+        }
+        if (this.options.isSortQuery()) {
+            Collections.sort(params);
+        }
+        return params.isEmpty() ? base : base + "?" + String.join("&", params);
+    }
+
+    /**
+     * 请求体的 SHA-256 摘要，没有请求体时为空字符串
+     */
+    static String hash(String postData) {
+        if (StringKit.isEmpty(postData)) {
+            return "";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(postData.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new InternalException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.index.clear();
+        this.channel.close();
+    }
+
+    /**
+     * 一条记录的响应
+     */
+    public class Entry {
+
+        private final int status;
+        private final List<HeaderEntry> headers;
+        private final int bodyOffset;
+        private final int bodyLength;
+
+        Entry(int status, List<HeaderEntry> headers, int bodyOffset, int bodyLength) {
+            this.status = status;
+            this.headers = headers;
+            this.bodyOffset = bodyOffset;
+            this.bodyLength = bodyLength;
+        }
+
+        public int getStatus() {
+            return this.status;
+        }
+
+        public List<HeaderEntry> getHeaders() {
+            return this.headers;
+        }
+
+        /**
+         * 从映射中读取响应体
+         */
+        public byte[] body() {
+            byte[] body = new byte[this.bodyLength];
+            buffer.slice(this.bodyOffset, this.bodyLength).get(body);
+            return body;
+        }
+
+        /**
+         * Fetch.fulfillRequest 的参数
+         *
+         * @param interceptionId 暂停的请求
+         * @return 参数
+         */
+        public Map<String, Object> fulfillParams(String interceptionId) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("requestId", interceptionId);
+            params.put("responseCode", this.status);
+            params.put("responseHeaders", this.headers);
+            params.put("body", this.body());
+            return params;
+        }
+
+    }
+
+}
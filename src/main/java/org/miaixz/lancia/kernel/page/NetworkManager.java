@@ -28,20 +28,26 @@
 package org.miaixz.lancia.kernel.page;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import org.miaixz.bus.core.lang.Assert;
 import org.miaixz.bus.core.xyz.StringKit;
+import org.miaixz.bus.logger.Logger;
 import org.miaixz.lancia.Builder;
 import org.miaixz.lancia.Emitter;
 import org.miaixz.lancia.nimble.fetch.AuthRequiredEvent;
 import org.miaixz.lancia.nimble.fetch.RequestPausedEvent;
 import org.miaixz.lancia.nimble.network.*;
 import org.miaixz.lancia.nimble.webAuthn.Credentials;
+import org.miaixz.lancia.option.InterceptionOptions;
+import org.miaixz.lancia.option.data.BlockingRules;
 import org.miaixz.lancia.socket.CDPSession;
 import org.miaixz.lancia.worker.enums.CDPSessionEvent;
 import org.miaixz.lancia.worker.enums.NetworkManagerType;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 /**
  * 网络管理
@@ -67,11 +73,59 @@ public class NetworkManager extends Emitter<NetworkManagerType> {
     private boolean userRequestInterceptionEnabled;
     private boolean protocolRequestInterceptionEnabled;
     private boolean userCacheDisabled;
+    /**
+     * 资源屏蔽规则，没有设置时为 null
+     */
+    private RequestBlocker blocker;
+    /**
+     * 当前为屏蔽规则开启的 Fetch 匹配条件
+     */
+    private List<ObjectNode> blockingPatterns = Collections.emptyList();
+    /**
+     * 全量拦截时已经由屏蔽规则处理、但 requestWillBeSent 还没有到达的请求
+     */
+    private final Set<String> settledRequestIds = new HashSet<>();
+    /**
+     * 全量拦截时已经由回放或者共享缓存响应、但 requestWillBeSent 还没有到达的请求
+     */
+    private final Set<String> servedRequestIds = new HashSet<>();
+    /**
+     * 共享缓存在读线程之外决定响应还是交给拦截，请求和暂停事件的配对需要加锁
+     */
+    private final Object pairLock = new Object();
+    /**
+     * 回放的网络记录，没有设置时为 null
+     */
+    private NetworkArchive archive;
+    /**
+     * 页面间共享的静态资源缓存，没有使用时为 null
+     */
+    private SharedAssetCache assetCache;
+    /**
+     * 单独配置的拦截处理管线，为 null 时使用共用的管线
+     */
+    private InterceptionPipeline interceptionPipeline;
+    /**
+     * Network 域是否已经开启
+     */
+    private boolean enabled;
+    /**
+     * 临时需要 Network 域的使用者数量，见 {@link #acquire()}
+     */
+    private int holds;
+    /**
+     * Network 域是因为临时使用者才开启的，最后一个使用者释放时要关闭
+     */
+    private boolean enabledByHold;
+    /**
+     * 临时使用期间有关闭请求，延迟到最后一个使用者释放时再关闭
+     */
+    private boolean disablePending;
 
     public NetworkManager(CDPSession client, FrameManager frameManager) {
         this.client = client;
         this.frameManager = frameManager;
-        this.requestIdToRequest = new HashMap<>();
+        this.requestIdToRequest = new ConcurrentHashMap<>();
         this.requestIdToRequestWillBeSentEvent = new HashMap<>();
         this.extraHTTPHeaders = new HashMap<>();
         this.offline = false;
@@ -104,13 +158,90 @@ public class NetworkManager extends Emitter<NetworkManagerType> {
         }
         Map<String, Object> params = new HashMap<>();
         params.put("headers", this.extraHTTPHeaders);
+        this.enable();
         this.client.send("Network.setExtraHTTPHeaders", params);
     }
 
     public void initialize() {
+        this.enabled = true;
         this.client.send("Network.enable");
     }
 
+    public CompletableFuture<JsonNode> initializeAsync() {
+        this.enabled = true;
+        return this.client.sendAsync("Network.enable", null);
+    }
+
+    /**
+     * 按需开启 Network 域，已经开启时什么都不做
+     */
+    public synchronized void enable() {
+        // 明确要求开启的使用者接管了 Network 域，临时使用者释放时不再关闭
+        this.enabledByHold = false;
+        this.disablePending = false;
+        if (this.enabled) {
+            return;
+        }
+        this.enabled = true;
+        this.client.sendAsync("Network.enable", null).exceptionally(e -> {
+            Logger.error("lancia error:", e);
+            return null;
+        });
+    }
+
+    /**
+     * 没有拦截、认证、请求头、离线和缓存设置依赖 Network 域时关闭它
+     */
+    public synchronized void disableIfIdle() {
+        if (this.holds > 0) {
+            this.disablePending = this.enabled;
+            return;
+        }
+        if (!this.enabled || this.userRequestInterceptionEnabled || this.protocolRequestInterceptionEnabled
+                || this.credentials != null || !this.extraHTTPHeaders.isEmpty() || this.offline
+                || this.userCacheDisabled || this.blocker != null || this.archive != null
+                || this.assetCache != null) {
+            return;
+        }
+        this.enabled = false;
+        this.client.sendAsync("Network.disable", null).exceptionally(e -> {
+            Logger.error("lancia error:", e);
+            return null;
+        });
+    }
+
+    /**
+     * 临时使用 Network 域，比如一次导航中的网络空闲判断，没有开启时开启，之后必须调用 {@link #release()}
+     */
+    public synchronized void acquire() {
+        if (this.holds++ == 0 && !this.enabled) {
+            this.enable();
+            this.enabledByHold = true;
+        }
+    }
+
+    /**
+     * 结束临时使用，最后一个使用者释放时恢复 Network 域原来的状态
+     */
+    public synchronized void release() {
+        if (this.holds == 0 || --this.holds > 0) {
+            return;
+        }
+        if (this.enabledByHold || this.disablePending) {
+            this.enabledByHold = false;
+            this.disablePending = false;
+            this.disableIfIdle();
+        }
+    }
+
+    public CDPSession client() {
+        return this.client;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
     public void authenticate(Credentials credentials) {
         this.credentials = credentials;
         this.updateProtocolRequestInterception();
@@ -130,6 +261,7 @@ public class NetworkManager extends Emitter<NetworkManagerType> {
         params.put("latency", 0);
         params.put("downloadThroughput", -1);
         params.put("uploadThroughput", -1);
+        this.enable();
         this.client.send("Network.emulateNetworkConditions", params);
     }
 
@@ -149,19 +281,89 @@ public class NetworkManager extends Emitter<NetworkManagerType> {
         this.updateProtocolRequestInterception();
     }
 
+    /**
+     * 设置资源屏蔽规则，传入 null 清除规则
+     *
+     * @param rules 屏蔽规则
+     */
+    public void setBlockingRules(BlockingRules rules) {
+        this.blocker = rules == null ? null : new RequestBlocker(rules);
+        Map<String, Object> params = new HashMap<>();
+        params.put("urls", this.blocker == null ? Collections.emptyList() : this.blocker.blockedUrls());
+        this.enable();
+        this.client.send("Network.setBlockedURLs", params);
+        this.updateProtocolRequestInterception();
+    }
+
+    /**
+     * 从网络记录回放响应，传入 null 停止回放
+     *
+     * @param archive 网络记录
+     */
+    public void setNetworkArchive(NetworkArchive archive) {
+        this.archive = archive;
+        this.enable();
+        this.updateProtocolRequestInterception();
+    }
+
+    /**
+     * 使用页面间共享的静态资源缓存，由 {@link SharedAssetCache#attach(NetworkManager)} 调用
+     *
+     * @param assetCache 静态资源缓存，传入 null 停止使用
+     */
+    void setAssetCache(SharedAssetCache assetCache) {
+        this.assetCache = assetCache;
+        this.enable();
+        this.updateProtocolRequestInterception();
+    }
+
+    /**
+     * 设置拦截处理的线程数、队列上限和决策期限，传入 null 时使用共用的管线
+     *
+     * @param options 拦截处理选项
+     */
+    public synchronized void setInterceptionOptions(InterceptionOptions options) {
+        if (this.interceptionPipeline != null) {
+            this.interceptionPipeline.shutdown();
+        }
+        this.interceptionPipeline = options == null ? null : new InterceptionPipeline(options);
+    }
+
+    private synchronized InterceptionPipeline interceptionPipeline() {
+        return this.interceptionPipeline == null ? InterceptionPipeline.shared() : this.interceptionPipeline;
+    }
+
     private void updateProtocolCacheDisabled() {
         Map<String, Object> params = new HashMap<>();
         boolean cacheDisabled = this.userCacheDisabled || this.protocolRequestInterceptionEnabled;
         params.put("cacheDisabled", cacheDisabled);
+        this.enable();
         this.client.send("Network.setCacheDisabled", params);
     }
 
     public void updateProtocolRequestInterception() {
         boolean enabled = this.userRequestInterceptionEnabled || this.credentials != null;
-        if (enabled == this.protocolRequestInterceptionEnabled)
+        // 全量拦截时规则在 onRequestPaused 中判断，否则只暂停规则需要的请求
+        List<ObjectNode> blockingPatterns = new ArrayList<>();
+        if (!enabled && this.archive != null) {
+            blockingPatterns.add(
+                    Builder.OBJECTMAPPER.createObjectNode().put("urlPattern", "*").put("requestStage", "Request"));
+        } else if (!enabled) {
+            if (this.blocker != null) {
+                blockingPatterns.addAll(this.blocker.patterns());
+            }
+            if (this.assetCache != null) {
+                blockingPatterns.addAll(this.assetCache.patterns());
+            }
+        }
+        if (enabled == this.protocolRequestInterceptionEnabled && blockingPatterns.equals(this.blockingPatterns))
             return;
+        boolean cacheChanged = enabled != this.protocolRequestInterceptionEnabled;
         this.protocolRequestInterceptionEnabled = enabled;
-        this.updateProtocolCacheDisabled();
+        this.blockingPatterns = blockingPatterns;
+        if (cacheChanged) {
+            this.updateProtocolCacheDisabled();
+        }
         if (enabled) {
             Map<String, Object> params = new HashMap<>();
             params.put("handleAuthRequests", true);
@@ -169,6 +371,10 @@ public class NetworkManager extends Emitter<NetworkManagerType> {
             patterns.add(Builder.OBJECTMAPPER.createObjectNode().put("urlPattern", "*"));
             params.put("patterns", patterns);
             this.client.send("Fetch.enable", params);
+        } else if (!blockingPatterns.isEmpty()) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("patterns", blockingPatterns);
+            this.client.send("Fetch.enable", params);
         } else {
             this.client.send("Fetch.disable");
         }
@@ -178,13 +384,20 @@ public class NetworkManager extends Emitter<NetworkManagerType> {
         // Request interception doesn't happen for data URLs with Network Service.
         if (this.protocolRequestInterceptionEnabled && !event.getRequest().url().startsWith("data:")) {
             String requestId = event.getRequestId();
-            String interceptionId = this.requestIdToInterceptionId.get(requestId);
-            if (StringKit.isNotEmpty(interceptionId)) {
-                this.onRequest(event, interceptionId);
-                this.requestIdToInterceptionId.remove(requestId);
-            } else {
-                this.requestIdToRequestWillBeSentEvent.put(event.getRequestId(), event);
+            String interceptionId;
+            boolean served;
+            synchronized (this.pairLock) {
+                if (this.settledRequestIds.remove(requestId)) {
+                    return;
+                }
+                served = this.servedRequestIds.remove(requestId);
+                interceptionId = served ? null : this.requestIdToInterceptionId.remove(requestId);
+                if (!served && StringKit.isEmpty(interceptionId)) {
+                    this.requestIdToRequestWillBeSentEvent.put(requestId, event);
+                    return;
+                }
             }
+            this.onRequest(event, interceptionId, served);
             return;
         }
         this.onRequest(event, null);
@@ -218,6 +431,63 @@ public class NetworkManager extends Emitter<NetworkManagerType> {
     }
 
     public void onRequestPaused(RequestPausedEvent event) {
+        if (this.blocker != null && this.blocker.isBlocked(event.getRequest().getUrl(), event.getResourceType())) {
+            this.settle(event, "BlockedByClient");
+            return;
+        }
+        NetworkArchive archive = this.archive;
+        if (archive != null) {
+            NetworkArchive.Entry entry = archive.find(event.getRequest().getMethod(), event.getRequest().getUrl(),
+                    event.getRequest().getPostData());
+            if (entry != null) {
+                // 响应体的复制和编码放到读线程之外
+                this.serve(event);
+                CompletableFuture.runAsync(() -> this.client.send("Fetch.fulfillRequest",
+                        entry.fulfillParams(event.getRequestId()), null, false));
+                return;
+            }
+            if (!archive.isFallthrough()) {
+                this.settle(event, "InternetDisconnected");
+                return;
+            }
+        }
+        SharedAssetCache assetCache = this.assetCache;
+        if (assetCache != null) {
+            SharedAssetCache.Entry entry = assetCache.find(event.getRequest().getMethod(),
+                    event.getRequest().getUrl(), event.getResourceType());
+            if (entry != null) {
+                CompletableFuture.runAsync(() -> {
+                    Map<String, Object> params = entry.fulfillParams(event.getRequestId());
+                    if (params != null) {
+                        this.serve(event);
+                        this.client.send("Fetch.fulfillRequest", params, null, false);
+                    } else {
+                        // 读取前已经被淘汰，按没有命中缓存处理
+                        this.intercept(event);
+                    }
+                }).exceptionally(e -> {
+                    Logger.error("lancia error:", e);
+                    return null;
+                });
+                return;
+            }
+        }
+        this.intercept(event);
+    }
+
+    /**
+     * 没有被屏蔽、回放或者共享缓存处理的请求，按拦截设置放行或者交给用户
+     *
+     * @param event 暂停事件
+     */
+    private void intercept(RequestPausedEvent event) {
+        if (!this.protocolRequestInterceptionEnabled) {
+            // 只为屏蔽规则暂停的请求，命中放行规则直接继续
+            Map<String, Object> params = new HashMap<>();
+            params.put("requestId", event.getRequestId());
+            this.client.send("Fetch.continueRequest", params, null, false);
+            return;
+        }
         if (!this.userRequestInterceptionEnabled && this.protocolRequestInterceptionEnabled) {
             Map<String, Object> params = new HashMap<>();
             params.put("requestId", event.getRequestId());
@@ -226,16 +496,69 @@ public class NetworkManager extends Emitter<NetworkManagerType> {
 
         String requestId = event.getNetworkId();
         String interceptionId = event.getRequestId();
-        if (StringKit.isNotEmpty(requestId) && this.requestIdToRequestWillBeSentEvent.containsKey(requestId)) {
-            RequestWillBeSentEvent requestWillBeSentEvent = this.requestIdToRequestWillBeSentEvent.get(requestId);
+        RequestWillBeSentEvent requestWillBeSentEvent;
+        synchronized (this.pairLock) {
+            requestWillBeSentEvent = StringKit.isNotEmpty(requestId)
+                    ? this.requestIdToRequestWillBeSentEvent.remove(requestId)
+                    : null;
+            if (requestWillBeSentEvent == null) {
+                this.requestIdToInterceptionId.put(requestId, interceptionId);
+            }
+        }
+        if (requestWillBeSentEvent != null) {
             this.onRequest(requestWillBeSentEvent, interceptionId);
-            this.requestIdToRequestWillBeSentEvent.remove(requestId);
-        } else {
-            this.requestIdToInterceptionId.put(requestId, interceptionId);
+        }
+    }
+
+    /**
+     * 请求已经由屏蔽规则处理，让它失败并且不再交给用户
+     *
+     * @param event       暂停事件
+     * @param errorReason 请求失败的原因
+     */
+    private void settle(RequestPausedEvent event, String errorReason) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", event.getRequestId());
+        params.put("errorReason", errorReason);
+        this.client.send("Fetch.failRequest", params, null, false);
+        String networkId = event.getNetworkId();
+        if (!this.protocolRequestInterceptionEnabled || StringKit.isEmpty(networkId)) {
+            return;
+        }
+        synchronized (this.pairLock) {
+            if (this.requestIdToRequestWillBeSentEvent.remove(networkId) == null) {
+                this.settledRequestIds.add(networkId);
+            }
+        }
+    }
+
+    /**
+     * 请求已经由回放或者共享缓存响应，仍然发出请求、响应和完成事件，但不再交给用户决定
+     *
+     * @param event 暂停事件
+     */
+    private void serve(RequestPausedEvent event) {
+        String networkId = event.getNetworkId();
+        if (!this.protocolRequestInterceptionEnabled || StringKit.isEmpty(networkId)) {
+            return;
+        }
+        RequestWillBeSentEvent requestWillBeSentEvent;
+        synchronized (this.pairLock) {
+            requestWillBeSentEvent = this.requestIdToRequestWillBeSentEvent.remove(networkId);
+            if (requestWillBeSentEvent == null) {
+                this.servedRequestIds.add(networkId);
+            }
+        }
+        if (requestWillBeSentEvent != null) {
+            this.onRequest(requestWillBeSentEvent, null, true);
         }
     }
 
     public void onRequest(RequestWillBeSentEvent event, String interceptionId) {
+        this.onRequest(event, interceptionId, false);
+    }
+
+    private void onRequest(RequestWillBeSentEvent event, String interceptionId, boolean served) {
         List<Request> redirectChain = new ArrayList<>();
         if (event.getRedirectResponse() != null) {
             Request request = this.requestIdToRequest.get(event.getRequestId());
@@ -248,8 +571,18 @@ public class NetworkManager extends Emitter<NetworkManagerType> {
         Frame frame = StringKit.isNotEmpty(event.getFrameId()) ? this.frameManager.getFrame(event.getFrameId()) : null;
         Request request = new Request(this.client, frame, interceptionId, this.userRequestInterceptionEnabled, event,
                 redirectChain);
+        if (served) {
+            request.markServed();
+        }
         this.requestIdToRequest.put(event.getRequestId(), request);
+        // 内部的记录在读线程上同步完成，保证先于同一请求的响应和完成事件
         this.emit(NetworkManagerType.Request, request);
+        if (this.userRequestInterceptionEnabled && StringKit.isNotEmpty(interceptionId)) {
+            // 暂停的请求交给工作线程处理，处理器可以放心地同步调用 continueRequest、respond 和 abort
+            this.interceptionPipeline().dispatch(request, () -> this.emit(NetworkManagerType.UserRequest, request));
+            return;
+        }
+        this.emit(NetworkManagerType.UserRequest, request);
     }
 
     private void handleRequestRedirect(Request request, ResponsePayload responsePayload) {
@@ -276,7 +609,7 @@ public class NetworkManager extends Emitter<NetworkManagerType> {
             request.response().bodyLoadedPromiseFulfill(null);
         this.requestIdToRequest.remove(request.requestId());
         this.attemptedAuthentications.remove(request.interceptionId());
-        this.emit(NetworkManagerType.RequestFailed, request);
+        this.emit(NetworkManagerType.RequestFinished, request);
     }
 
     public void onResponseReceived(ResponseReceivedEvent event) {
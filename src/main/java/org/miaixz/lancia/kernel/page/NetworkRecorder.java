@@ -0,0 +1,197 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.miaixz.bus.core.lang.exception.InternalException;
+import org.miaixz.bus.logger.Logger;
+import org.miaixz.lancia.Builder;
+import org.miaixz.lancia.socket.CDPSession;
+import org.miaixz.lancia.worker.enums.CDPSessionEvent;
+import org.miaixz.lancia.worker.enums.NetworkManagerType;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * 网络记录
+ * <p>
+ * 请求完成后异步取回响应体，连同状态和响应头追加写入记录文件，之后可以用 {@link NetworkArchive} 回放。 一个记录器可以同时记录多个页面
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class NetworkRecorder implements Closeable {
+
+    /**
+     * 回放时由 Fetch.fulfillRequest 重新计算的响应头，记录的响应体已经解码
+     */
+    private static final Set<String> SKIPPED_HEADERS = new HashSet<>(
+            Arrays.asList("content-encoding", "content-length", "transfer-encoding"));
+
+    private final FileChannel channel;
+    private final Map<NetworkManager, Consumer<Request>> listeners = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * @param path 记录文件，已经存在时会被覆盖
+     * @throws IOException 创建文件失败
+     */
+    public NetworkRecorder(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(NetworkArchive.MAGIC).putInt(NetworkArchive.VERSION).flip();
+        while (header.hasRemaining()) {
+            this.channel.write(header);
+        }
+    }
+
+    /**
+     * 开始记录一个页面的网络请求
+     *
+     * @param networkManager 页面的网络管理
+     */
+    public void attach(NetworkManager networkManager) {
+        if (this.closed) {
+            throw new InternalException("Network recorder is closed");
+        }
+        Consumer<Request> listener = request -> this.onRequestFinished(networkManager.client(), request);
+        if (this.listeners.putIfAbsent(networkManager, listener) == null) {
+            networkManager.enable();
+            networkManager.on(NetworkManagerType.RequestFinished, listener);
+            // 记录器可能比页面活得久，页面关闭后不能再持有它的网络管理
+            networkManager.client().once(CDPSessionEvent.CDPSession_Disconnected,
+                    ignore -> this.detach(networkManager));
+        }
+    }
+
+    /**
+     * 停止记录一个页面
+     *
+     * @param networkManager 页面的网络管理
+     */
+    public void detach(NetworkManager networkManager) {
+        Consumer<Request> listener = this.listeners.remove(networkManager);
+        if (listener != null) {
+            networkManager.off(NetworkManagerType.RequestFinished, listener);
+        }
+    }
+
+    /**
+     * 读线程上执行，只发出异步请求
+     */
+    private void onRequestFinished(CDPSession client, Request request) {
+        Response response = request.response();
+        if (this.closed || response == null || request.url().startsWith("data:") || response.status() < 200
+                || response.status() == 304) {
+            return;
+        }
+        CompletableFuture<byte[]> body;
+        if (response.status() >= 300 && response.status() < 400) {
+            body = CompletableFuture.completedFuture(new byte[0]);
+        } else {
+            Map<String, Object> params = new HashMap<>();
+            params.put("requestId", request.requestId());
+            body = client.sendAsync("Network.getResponseBody", params).thenApply(result -> {
+                if (result == null) {
+                    return new byte[0];
+                }
+                return result.get("base64Encoded").asBoolean()
+                        ? Base64.getDecoder().decode(result.get("body").asText())
+                        : result.get("body").asText().getBytes(StandardCharsets.UTF_8);
+            });
+        }
+        CompletableFuture<?> write = body.thenAccept(bytes -> this.write(request, response, bytes))
+                .exceptionally(e -> {
+                    Logger.debug("Skip recording {}: {}", request.url(), e.getMessage());
+                    return null;
+                });
+        this.pending.add(write);
+        write.whenComplete((ignore, e) -> this.pending.remove(write));
+    }
+
+    private void write(Request request, Response response, byte[] body) {
+        ObjectNode meta = Builder.OBJECTMAPPER.createObjectNode();
+        meta.put("method", request.method());
+        meta.put("url", request.url());
+        meta.put("bodyHash", NetworkArchive.hash(request.postData()));
+        meta.put("status", response.status());
+        ObjectNode headers = meta.putObject("headers");
+        response.headers().forEach((name, value) -> {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.put(name, value);
+            }
+        });
+        byte[] metaBytes = meta.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(8 + metaBytes.length + body.length);
+        entry.putInt(metaBytes.length).put(metaBytes).putInt(body.length).put(body).flip();
+        synchronized (this.channel) {
+            if (!this.channel.isOpen()) {
+                return;
+            }
+            try {
+                while (entry.hasRemaining()) {
+                    this.channel.write(entry);
+                }
+            } catch (IOException e) {
+                throw new InternalException(e);
+            }
+        }
+    }
+
+    /**
+     * 停止记录所有页面，等待已经完成的请求写入后关闭文件
+     */
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        new ArrayList<>(this.listeners.keySet()).forEach(this::detach);
+        try {
+            CompletableFuture.allOf(this.pending.toArray(new CompletableFuture[0])).get(Builder.DEFAULT_TIMEOUT,
+                    TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            Logger.debug("Network recorder closed with pending responses: {}", e.getMessage());
+        }
+        synchronized (this.channel) {
+            this.channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.miaixz.bus.core.lang.Assert;
+import org.miaixz.lancia.Builder;
+
+/**
+ * 预编译的页面函数
+ * <p>
+ * 函数在每个执行上下文中只安装一次，之后按引用调用，只传输参数；页面导航后上下文被替换，下次调用时自动重新安装
+ *
+ * <pre>
+ * PageFunction sum = page.compile("(a, b) => a + b");
+ * for (...) {
+ *     sum.evaluate(page.mainFrame().executionContext(), Arrays.asList(1, 2));
+ * }
+ * </pre>
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class PageFunction {
+
+    /**
+     * 安装的函数对象所在的 objectGroup，不受句柄作用域影响
+     */
+    public static final String OBJECT_GROUP = "lancia-page-functions";
+
+    private final String source;
+    /**
+     * 执行上下文到函数对象 objectId 的映射，上下文被丢弃后自动移除
+     */
+    private final Map<ExecutionContext, String> installed = new WeakHashMap<>();
+
+    public PageFunction(String source) {
+        Assert.isTrue(Builder.isFunction(source), "PageFunction expects a function, but got: " + source);
+        this.source = source;
+    }
+
+    public String source() {
+        return this.source;
+    }
+
+    /**
+     * 在指定的执行上下文中调用并按值返回
+     *
+     * @param context 执行上下文
+     * @param args    函数参数
+     * @return 函数的返回值
+     */
+    public Object evaluate(ExecutionContext context, List<Object> args) {
+        return this.call(context, true, args);
+    }
+
+    /**
+     * 在指定的执行上下文中调用并返回 JSHandle
+     *
+     * @param context 执行上下文
+     * @param args    函数参数
+     * @return 函数的返回值
+     */
+    public JSHandle evaluateHandle(ExecutionContext context, List<Object> args) {
+        return (JSHandle) this.call(context, false, args);
+    }
+
+    private Object call(ExecutionContext context, boolean returnByValue, List<Object> args) {
+        String functionId = this.functionId(context, false);
+        try {
+            return context.invoke(functionId, returnByValue, args);
+        } catch (RuntimeException e) {
+            if (!isStale(e)) {
+                throw e;
+            }
+            // 函数对象已经不存在，比如上下文被销毁或者分组被释放，重新安装一次
+            return context.invoke(this.functionId(context, true), returnByValue, args);
+        }
+    }
+
+    private String functionId(ExecutionContext context, boolean reinstall) {
+        synchronized (this.installed) {
+            String functionId = reinstall ? null : this.installed.get(context);
+            if (functionId == null) {
+                functionId = context.install(this.source);
+                this.installed.put(context, functionId);
+            }
+            return functionId;
+        }
+    }
+
+    private static boolean isStale(RuntimeException e) {
+        String message = e.getMessage();
+        return message != null && (message.contains("Could not find object with given id")
+                || message.contains("Cannot find context with specified id"));
+    }
+
+}
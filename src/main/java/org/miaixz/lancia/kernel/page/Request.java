@@ -31,12 +31,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.miaixz.bus.core.codec.binary.Base64;
 import org.miaixz.bus.core.lang.Assert;
 import org.miaixz.bus.core.lang.Charset;
 import org.miaixz.bus.core.xyz.CollKit;
 import org.miaixz.bus.core.xyz.StringKit;
+import org.miaixz.bus.logger.Logger;
 import org.miaixz.lancia.nimble.fetch.HeaderEntry;
 import org.miaixz.lancia.nimble.network.RequestWillBeSentEvent;
 import org.miaixz.lancia.socket.CDPSession;
@@ -128,7 +130,11 @@ public class Request {
     private boolean isNavigationRequest;
     private String interceptionId;
     private boolean allowInterception;
-    private boolean interceptionHandled;
+    private volatile boolean interceptionHandled;
+    /**
+     * 已经由网络记录回放或者共享缓存响应，处理器的决定不再生效
+     */
+    private volatile boolean served;
     private Response response;
     private String failureText;
     private String url;
@@ -207,14 +213,43 @@ public class Request {
      * @return Future
      */
     public JsonNode continueRequest(String url, String method, String postData, Map<String, String> headers) {
+        Map<String, Object> params = this.continueParams(url, method, postData, headers);
+        return params == null ? null : client.send("Fetch.continueRequest", params);
+    }
+
+    /**
+     * 不等待浏览器回复的 continueRequest，可以在任何线程调用
+     *
+     * @param url      url
+     * @param method   方法 GET POST
+     * @param postData 数据 the post data of request
+     * @param headers  请求头
+     * @return 浏览器回复后完成
+     */
+    public CompletableFuture<JsonNode> continueRequestAsync(String url, String method, String postData,
+            Map<String, String> headers) {
+        Map<String, Object> params = this.continueParams(url, method, postData, headers);
+        return params == null ? CompletableFuture.completedFuture(null)
+                : client.sendAsync("Fetch.continueRequest", params);
+    }
+
+    /**
+     * 不等待浏览器回复的请求继续
+     *
+     * @return 浏览器回复后完成
+     */
+    public CompletableFuture<JsonNode> continueRequestAsync() {
+        return this.continueRequestAsync(null, null, null, null);
+    }
+
+    private Map<String, Object> continueParams(String url, String method, String postData,
+            Map<String, String> headers) {
         // Request interception is not supported for data: urls.
-        if (url().startsWith("data:"))
+        if (url().startsWith("data:") || this.served)
             return null;
 
         Assert.isTrue(isAllowInterception(), "Request Interception is not enabled!");
-        Assert.isTrue(!isInterceptionHandled(), "Request is already handled!");
-
-        setInterceptionHandled(true);
+        this.markInterceptionHandled();
         Map<String, Object> params = new HashMap<>();
         params.put("requestId", interceptionId());
 
@@ -231,7 +266,7 @@ public class Request {
         if (headers != null && headers.size() > 0) {
             params.put("headers", headersArray(headers));
         }
-        return client.send("Fetch.continueRequest", params);
+        return params;
     }
 
     /**
@@ -253,15 +288,50 @@ public class Request {
      */
     public JsonNode respond(int status, List<HeaderEntry> headers, String contentType, String body,
             boolean needBase64Decode) {
+        Map<String, Object> params = this.respondParams(status, headers, contentType, body, needBase64Decode);
+        return params == null ? null : client.send("Fetch.fulfillRequest", params);
+    }
+
+    /**
+     * 不等待浏览器回复的自定义响应，可以在任何线程调用
+     *
+     * @param status           响应状态
+     * @param headers          响应头
+     * @param contentType      contentType
+     * @param body             响应体
+     * @param needBase64Decode 自定义响应体是否需要Base64解码
+     * @return 浏览器回复后完成
+     */
+    public CompletableFuture<JsonNode> respondAsync(int status, List<HeaderEntry> headers, String contentType,
+            String body, boolean needBase64Decode) {
+        Map<String, Object> params = this.respondParams(status, headers, contentType, body, needBase64Decode);
+        return params == null ? CompletableFuture.completedFuture(null)
+                : client.sendAsync("Fetch.fulfillRequest", params);
+    }
+
+    /**
+     * 不等待浏览器回复的自定义响应, 默认对响应体做base64解码
+     *
+     * @param status      响应状态
+     * @param headers     响应头
+     * @param contentType contentType
+     * @param body        响应体
+     * @return 浏览器回复后完成
+     */
+    public CompletableFuture<JsonNode> respondAsync(int status, List<HeaderEntry> headers, String contentType,
+            String body) {
+        return this.respondAsync(status, headers, contentType, body, true);
+    }
+
+    private Map<String, Object> respondParams(int status, List<HeaderEntry> headers, String contentType, String body,
+            boolean needBase64Decode) {
         // Mocking responses for dataURL requests is not currently supported.
-        if (url().startsWith("data:")) {
+        if (url().startsWith("data:") || this.served) {
             return null;
         }
 
         Assert.isTrue(allowInterception, "Request Interception is not enabled!");
-        Assert.isTrue(!interceptionHandled, "Request is already handled!");
-
-        setInterceptionHandled(true);
+        this.markInterceptionHandled();
         byte[] responseBody = null;
         if (StringKit.isNotEmpty(body)) {
             responseBody = body.getBytes(Charset.UTF_8);
@@ -295,7 +365,7 @@ public class Request {
                 params.put("body", responseBody);
             }
         }
-        return client.send("Fetch.fulfillRequest", params);
+        return params;
     }
 
     /**
@@ -318,20 +388,43 @@ public class Request {
      * @return Future
      */
     public JsonNode abort(ErrorCode errorCode) {
+        Map<String, Object> params = this.abortParams(errorCode);
+        return params == null ? null : client.send("Fetch.failRequest", params);
+    }
+
+    /**
+     * 不等待浏览器回复的拒绝发请求，可以在任何线程调用
+     *
+     * @param errorCode errorCode错误码
+     * @return 浏览器回复后完成
+     */
+    public CompletableFuture<JsonNode> abortAsync(ErrorCode errorCode) {
+        Map<String, Object> params = this.abortParams(errorCode);
+        return params == null ? CompletableFuture.completedFuture(null)
+                : client.sendAsync("Fetch.failRequest", params);
+    }
+
+    /**
+     * 不等待浏览器回复的截断请求
+     *
+     * @return 浏览器回复后完成
+     */
+    public CompletableFuture<JsonNode> abortAsync() {
+        return this.abortAsync(ErrorCode.FAILED);
+    }
+
+    private Map<String, Object> abortParams(ErrorCode errorCode) {
         // Request interception is not supported for data: urls.
-        if (url().startsWith("data:"))
+        if (url().startsWith("data:") || this.served)
             return null;
 
         String errorReason = errorCode.getName();
         Assert.isTrue(allowInterception, "Request Interception is not enabled!");
-        Assert.isTrue(!interceptionHandled, "Request is already handled!");
-
-        setInterceptionHandled(true);
+        this.markInterceptionHandled();
         Map<String, Object> params = new HashMap<>();
         params.put("requestId", interceptionId);
         params.put("errorReason", errorReason);
-        return client.send("Fetch.failRequest", params);
-
+        return params;
     }
 
     private List<HeaderEntry> headersArray(Map<String, String> headers) {
@@ -388,6 +481,14 @@ public class Request {
         return isNavigationRequest;
     }
 
+    /**
+     * 标记为已经由回放或者共享缓存响应
+     */
+    void markServed() {
+        this.served = true;
+        this.interceptionHandled = true;
+    }
+
     public boolean isInterceptionHandled() {
         return interceptionHandled;
     }
@@ -396,6 +497,40 @@ public class Request {
         this.interceptionHandled = interceptionHandled;
     }
 
+    /**
+     * 处理器和决策期限可能在不同线程同时处理同一个请求，只能有一个成功
+     */
+    private synchronized void markInterceptionHandled() {
+        Assert.isTrue(!this.interceptionHandled, "Request is already handled!");
+        this.interceptionHandled = true;
+    }
+
+    private synchronized boolean tryMarkInterceptionHandled() {
+        if (this.interceptionHandled) {
+            return false;
+        }
+        this.interceptionHandled = true;
+        return true;
+    }
+
+    /**
+     * 处理器没有做出决定时放行请求，不等待浏览器回复
+     *
+     * @return 请求已经被处理时返回 false
+     */
+    boolean continueIfUnhandled() {
+        if (!this.allowInterception || url().startsWith("data:") || !this.tryMarkInterceptionHandled()) {
+            return false;
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", interceptionId());
+        client.sendAsync("Fetch.continueRequest", params).exceptionally(e -> {
+            Logger.error("lancia error:", e);
+            return null;
+        });
+        return true;
+    }
+
     protected void setFailureText(String failureText) {
         this.failureText = failureText;
     }
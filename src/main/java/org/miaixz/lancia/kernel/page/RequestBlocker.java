@@ -0,0 +1,221 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.miaixz.bus.core.xyz.StringKit;
+import org.miaixz.lancia.Builder;
+import org.miaixz.lancia.option.data.BlockingRules;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * 把 {@link BlockingRules} 编译成浏览器端的过滤条件
+ * <p>
+ * 没有放行规则时，地址和域名直接交给 Network.setBlockedURLs，完全不经过 Java；资源类型和需要判断放行的地址 编译成带 resourceType 和 requestStage 的
+ * Fetch.enable 匹配条件，只有命中的请求才会暂停
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class RequestBlocker {
+
+    /**
+     * 小写的资源类型到协议中资源类型的对应关系
+     */
+    private static final Map<String, String> RESOURCE_TYPES = new HashMap<>();
+
+    static {
+        for (String type : new String[] { "Document", "Stylesheet", "Image", "Media", "Font", "Script", "TextTrack",
+                "XHR", "Fetch", "Prefetch", "EventSource", "WebSocket", "Manifest", "SignedExchange", "Ping",
+                "CSPViolationReport", "Preflight", "Other" }) {
+            RESOURCE_TYPES.put(type.toLowerCase(Locale.ROOT), type);
+        }
+    }
+
+    private final List<String> resourceTypes = new ArrayList<>();
+    private final List<Pattern> urls = new ArrayList<>();
+    private final List<String> domains = new ArrayList<>();
+    private final List<Pattern> allowUrls = new ArrayList<>();
+    private final List<String> allowDomains = new ArrayList<>();
+    private final List<String> blockedUrls = new ArrayList<>();
+    private final List<ObjectNode> patterns = new ArrayList<>();
+
+    public RequestBlocker(BlockingRules rules) {
+        if (rules.getResourceTypes() != null) {
+            for (String type : rules.getResourceTypes()) {
+                String protocolType = protocolResourceType(type);
+                this.resourceTypes.add(protocolType);
+                this.patterns.add(pattern("*").put("resourceType", protocolType));
+            }
+        }
+        List<String> urlGlobs = new ArrayList<>();
+        if (rules.getUrls() != null) {
+            rules.getUrls().forEach(glob -> {
+                this.urls.add(toPattern(glob));
+                urlGlobs.add(glob);
+            });
+        }
+        if (rules.getDomains() != null) {
+            rules.getDomains().forEach(domain -> {
+                String normalized = normalizeDomain(domain);
+                this.domains.add(normalized);
+                urlGlobs.add("*://" + normalized + "/*");
+                urlGlobs.add("*://*." + normalized + "/*");
+            });
+        }
+        if (rules.getAllowUrls() != null) {
+            rules.getAllowUrls().forEach(glob -> this.allowUrls.add(toPattern(glob)));
+        }
+        if (rules.getAllowDomains() != null) {
+            rules.getAllowDomains().forEach(domain -> this.allowDomains.add(normalizeDomain(domain)));
+        }
+        if (this.allowUrls.isEmpty() && this.allowDomains.isEmpty()) {
+            this.blockedUrls.addAll(urlGlobs);
+        } else {
+            // Network.setBlockedURLs 没有例外规则，只能暂停后由 Java 判断是否放行
+            // Fetch 的 urlPattern 中 ? 也是通配符，这里统一只把 * 当作通配符
+            urlGlobs.forEach(glob -> this.patterns.add(pattern(glob.replace("?", "\\?"))));
+        }
+    }
+
+    /**
+     * 不区分大小写的资源类型转换成协议中的资源类型
+     *
+     * @param type 资源类型，如 image、xhr
+     * @return 协议中的资源类型，如 Image、XHR
+     */
+    static String protocolResourceType(String type) {
+        String protocolType = RESOURCE_TYPES.get(type.toLowerCase(Locale.ROOT));
+        if (protocolType == null) {
+            throw new IllegalArgumentException("Unknown resource type: " + type);
+        }
+        return protocolType;
+    }
+
+    private static ObjectNode pattern(String urlPattern) {
+        return Builder.OBJECTMAPPER.createObjectNode().put("urlPattern", urlPattern).put("requestStage", "Request");
+    }
+
+    private static String normalizeDomain(String domain) {
+        String normalized = domain.trim().toLowerCase(Locale.ROOT);
+        return normalized.startsWith(".") ? normalized.substring(1) : normalized;
+    }
+
+    /**
+     * 通配符转换成正则表达式，和 Network.setBlockedURLs 一样只有 * 是通配符
+     */
+    private static Pattern toPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(".*");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * @return 交给 Network.setBlockedURLs 的地址
+     */
+    public List<String> blockedUrls() {
+        return Collections.unmodifiableList(this.blockedUrls);
+    }
+
+    /**
+     * @return 交给 Fetch.enable 的匹配条件，为空时不需要暂停任何请求
+     */
+    public List<ObjectNode> patterns() {
+        return Collections.unmodifiableList(this.patterns);
+    }
+
+    /**
+     * 暂停的请求是否应该被屏蔽
+     *
+     * @param url          请求地址
+     * @param resourceType 协议中的资源类型
+     * @return 是否屏蔽
+     */
+    public boolean isBlocked(String url, String resourceType) {
+        String host = host(url);
+        if (matches(this.allowUrls, url) || matchesDomain(this.allowDomains, host)) {
+            return false;
+        }
+        return (resourceType != null && this.resourceTypes.contains(resourceType)) || matches(this.urls, url)
+                || matchesDomain(this.domains, host);
+    }
+
+    private static boolean matches(List<Pattern> patterns, String url) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(url).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesDomain(List<String> domains, String host) {
+        if (host == null) {
+            return false;
+        }
+        for (String domain : domains) {
+            if (host.equals(domain) || host.endsWith("." + domain)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return StringKit.isEmpty(host) ? null : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
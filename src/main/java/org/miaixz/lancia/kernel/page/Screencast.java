@@ -0,0 +1,153 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.miaixz.bus.core.lang.Assert;
+import org.miaixz.bus.logger.Logger;
+import org.miaixz.lancia.nimble.page.ScreencastFrameEvent;
+import org.miaixz.lancia.option.ScreencastOptions;
+import org.miaixz.lancia.socket.CDPSession;
+import org.miaixz.lancia.worker.enums.CDPSessionEvent;
+
+/**
+ * 屏幕录制
+ * <p>
+ * 帧事件在连接的读线程上到达，这里只登记后交给单独的线程解码并回调消费者，消费者可以阻塞；
+ * 浏览器在收到确认前不会发送新的帧，所以未确认的帧就是天然的背压
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class Screencast {
+
+    private final CDPSession client;
+    private final ScreencastOptions options;
+    private final Consumer<ScreencastFrame> consumer;
+    private final Consumer<ScreencastFrameEvent> listener = this::onFrame;
+    private ExecutorService executor;
+    private volatile boolean recording;
+
+    public Screencast(CDPSession client, ScreencastOptions options, Consumer<ScreencastFrame> consumer) {
+        this.client = client;
+        this.options = options == null ? new ScreencastOptions() : options;
+        this.consumer = consumer;
+    }
+
+    /**
+     * 开始录制
+     */
+    public synchronized void start() {
+        Assert.isTrue(!this.recording, "Screencast is already started.");
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "lancia-screencast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client.on(CDPSessionEvent.Page_screencastFrame, this.listener);
+        Map<String, Object> params = new HashMap<>();
+        params.put("format", this.options.getFormat());
+        if (this.options.getQuality() > 0) {
+            params.put("quality", this.options.getQuality());
+        }
+        if (this.options.getMaxWidth() > 0) {
+            params.put("maxWidth", this.options.getMaxWidth());
+        }
+        if (this.options.getMaxHeight() > 0) {
+            params.put("maxHeight", this.options.getMaxHeight());
+        }
+        params.put("everyNthFrame", Math.max(1, this.options.getEveryNthFrame()));
+        this.recording = true;
+        this.client.send("Page.startScreencast", params);
+    }
+
+    /**
+     * 停止录制，已经到达的帧会继续交给消费者
+     */
+    public synchronized void stop() {
+        if (!this.recording) {
+            return;
+        }
+        this.recording = false;
+        this.client.off(CDPSessionEvent.Page_screencastFrame, this.listener);
+        try {
+            this.client.send("Page.stopScreencast");
+        } finally {
+            this.executor.shutdown();
+        }
+    }
+
+    /**
+     * 会话已经断开时释放本地资源，不再发送协议命令
+     */
+    public synchronized void dispose() {
+        if (!this.recording) {
+            return;
+        }
+        this.recording = false;
+        this.client.off(CDPSessionEvent.Page_screencastFrame, this.listener);
+        this.executor.shutdown();
+    }
+
+    public boolean isRecording() {
+        return this.recording;
+    }
+
+    private void onFrame(ScreencastFrameEvent event) {
+        if (!this.recording) {
+            return;
+        }
+        try {
+            this.executor.execute(() -> this.deliver(event));
+        } catch (RejectedExecutionException ignored) {
+            // 已经停止
+        }
+    }
+
+    private void deliver(ScreencastFrameEvent event) {
+        ScreencastFrame frame = new ScreencastFrame(this.client, Base64.getDecoder().decode(event.getData()),
+                this.options.getFormat(), event.getMetadata(), event.getSessionId());
+        try {
+            this.consumer.accept(frame);
+        } catch (Exception e) {
+            Logger.error("Screencast consumer failed", e);
+        } finally {
+            if (this.options.isAutoAck() && this.recording) {
+                frame.ack();
+            }
+        }
+    }
+
+}
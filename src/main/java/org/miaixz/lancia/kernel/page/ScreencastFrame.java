@@ -0,0 +1,102 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.miaixz.lancia.nimble.page.ScreencastFrameMetadata;
+import org.miaixz.lancia.socket.CDPSession;
+
+/**
+ * 屏幕录制的一帧，数据已经解码
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class ScreencastFrame {
+
+    private final CDPSession client;
+    private final byte[] data;
+    private final String format;
+    private final ScreencastFrameMetadata metadata;
+    private final int sessionId;
+    private final AtomicBoolean acked = new AtomicBoolean();
+
+    public ScreencastFrame(CDPSession client, byte[] data, String format, ScreencastFrameMetadata metadata,
+            int sessionId) {
+        this.client = client;
+        this.data = data;
+        this.format = format;
+        this.metadata = metadata;
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * 确认已经处理完这一帧，浏览器收到确认后才会发送下一帧，重复调用没有作用
+     */
+    public void ack() {
+        if (!this.acked.compareAndSet(false, true)) {
+            return;
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("sessionId", this.sessionId);
+        this.client.send("Page.screencastFrameAck", params, null, false);
+    }
+
+    public boolean isAcked() {
+        return this.acked.get();
+    }
+
+    public byte[] getData() {
+        return this.data;
+    }
+
+    public String getFormat() {
+        return this.format;
+    }
+
+    public ScreencastFrameMetadata getMetadata() {
+        return this.metadata;
+    }
+
+    /**
+     * 帧的时间戳，自1970年以来的秒数
+     *
+     * @return 时间戳
+     */
+    public double getTimestamp() {
+        return this.metadata == null ? 0 : this.metadata.getTimestamp();
+    }
+
+    public int getSessionId() {
+        return this.sessionId;
+    }
+
+}
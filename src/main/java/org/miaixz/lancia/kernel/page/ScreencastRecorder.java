@@ -0,0 +1,112 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * 内置的屏幕录制输出，写入MJPEG文件或者图片序列，每一帧写完后确认
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class ScreencastRecorder implements Consumer<ScreencastFrame>, Closeable {
+
+    private final OutputStream out;
+    private final Path directory;
+    private int count;
+
+    private ScreencastRecorder(OutputStream out, Path directory) {
+        this.out = out;
+        this.directory = directory;
+    }
+
+    /**
+     * 把jpeg帧依次拼接写入一个MJPEG文件，可以直接用ffmpeg等工具读取
+     *
+     * @param file 文件路径
+     * @return 录制输出
+     * @throws IOException 文件无法创建
+     */
+    public static ScreencastRecorder mjpeg(Path file) throws IOException {
+        return new ScreencastRecorder(new BufferedOutputStream(Files.newOutputStream(file)), null);
+    }
+
+    /**
+     * 每一帧写成目录下的一个文件，文件名为 frame-序号.格式
+     *
+     * @param directory 目录，不存在时会被创建
+     * @return 录制输出
+     * @throws IOException 目录无法创建
+     */
+    public static ScreencastRecorder imageSequence(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new ScreencastRecorder(null, directory);
+    }
+
+    @Override
+    public synchronized void accept(ScreencastFrame frame) {
+        try {
+            if (this.out != null) {
+                this.out.write(frame.getData());
+            } else {
+                String name = String.format("frame-%06d.%s", this.count, frame.getFormat());
+                Files.write(this.directory.resolve(name), frame.getData());
+            }
+            this.count++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            frame.ack();
+        }
+    }
+
+    /**
+     * 已经写入的帧数
+     *
+     * @return 帧数
+     */
+    public synchronized int getCount() {
+        return this.count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.out != null) {
+            this.out.close();
+        }
+    }
+
+}
@@ -0,0 +1,444 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.miaixz.bus.core.lang.exception.InternalException;
+import org.miaixz.bus.core.xyz.StringKit;
+import org.miaixz.bus.logger.Logger;
+import org.miaixz.lancia.Builder;
+import org.miaixz.lancia.nimble.fetch.HeaderEntry;
+import org.miaixz.lancia.option.AssetCacheOptions;
+import org.miaixz.lancia.socket.CDPSession;
+import org.miaixz.lancia.worker.enums.CDPSessionEvent;
+import org.miaixz.lancia.worker.enums.NetworkManagerType;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * 页面间共享的静态资源缓存
+ * <p>
+ * 不同的隐身上下文不能共用浏览器的 HTTP 缓存，这里在 JVM 中按响应的缓存头保存样式、脚本、字体和图片， 响应体存放在磁盘上，索引按最近最少使用淘汰。挂接的页面从观察到的响应中填充缓存，
+ * 命中的请求由 Fetch.fulfillRequest 直接响应
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class SharedAssetCache implements Closeable {
+
+    /**
+     * 由 Fetch.fulfillRequest 重新计算或者不能复用的响应头
+     */
+    private static final Set<String> SKIPPED_HEADERS = new HashSet<>(
+            Arrays.asList("content-encoding", "content-length", "transfer-encoding", "set-cookie", "age"));
+
+    /**
+     * 没有明确缓存时间时，根据 Last-Modified 推算的缓存时间上限
+     */
+    private static final long MAX_HEURISTIC_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final Path directory;
+    private final boolean ownsDirectory;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Set<String> resourceTypes = new HashSet<>();
+    private final List<ObjectNode> patterns = new ArrayList<>();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<NetworkManager, Consumer<Request>> listeners = new ConcurrentHashMap<>();
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private volatile boolean closed;
+
+    public SharedAssetCache(AssetCacheOptions options) throws IOException {
+        if (options == null) {
+            options = new AssetCacheOptions();
+        }
+        if (options.getDirectory() == null) {
+            this.directory = Files.createTempDirectory("lancia-assets");
+            this.ownsDirectory = true;
+        } else {
+            this.directory = Files.createDirectories(options.getDirectory());
+            this.ownsDirectory = false;
+        }
+        this.maxBytes = options.getMaxBytes();
+        this.maxEntryBytes = Math.min(options.getMaxEntryBytes(), options.getMaxBytes());
+        for (String type : options.getResourceTypes()) {
+            String protocolType = RequestBlocker.protocolResourceType(type);
+            this.resourceTypes.add(protocolType.toLowerCase(Locale.ROOT));
+            this.patterns.add(Builder.OBJECTMAPPER.createObjectNode().put("urlPattern", "*")
+                    .put("resourceType", protocolType).put("requestStage", "Request"));
+        }
+    }
+
+    /**
+     * 页面开始使用缓存：命中的请求由缓存响应，完成的请求用来填充缓存
+     *
+     * @param networkManager 页面的网络管理
+     */
+    public void attach(NetworkManager networkManager) {
+        if (this.closed) {
+            throw new InternalException("Shared asset cache is closed");
+        }
+        Consumer<Request> listener = request -> this.onRequestFinished(networkManager.client(), request);
+        if (this.listeners.putIfAbsent(networkManager, listener) == null) {
+            networkManager.on(NetworkManagerType.RequestFinished, listener);
+            networkManager.setAssetCache(this);
+            // 缓存的生命周期比页面长，页面关闭后不能再持有它的网络管理
+            networkManager.client().once(CDPSessionEvent.CDPSession_Disconnected,
+                    ignore -> this.forget(networkManager));
+        }
+    }
+
+    /**
+     * 页面停止使用缓存
+     *
+     * @param networkManager 页面的网络管理
+     */
+    public void detach(NetworkManager networkManager) {
+        if (this.forget(networkManager)) {
+            networkManager.setAssetCache(null);
+        }
+    }
+
+    /**
+     * 只移除本地的监听，会话已经断开时不能再发送协议命令
+     *
+     * @return 页面之前是否在使用缓存
+     */
+    private boolean forget(NetworkManager networkManager) {
+        Consumer<Request> listener = this.listeners.remove(networkManager);
+        if (listener == null) {
+            return false;
+        }
+        networkManager.off(NetworkManagerType.RequestFinished, listener);
+        return true;
+    }
+
+    /**
+     * @return 需要暂停的请求对应的 Fetch.enable 匹配条件
+     */
+    List<ObjectNode> patterns() {
+        return Collections.unmodifiableList(this.patterns);
+    }
+
+    /**
+     * 查找仍然新鲜的缓存
+     *
+     * @param method       请求方法
+     * @param url          请求地址
+     * @param resourceType 协议中的资源类型
+     * @return 命中的缓存，没有时为 null
+     */
+    synchronized Entry find(String method, String url, String resourceType) {
+        if (this.closed || !"GET".equalsIgnoreCase(method) || resourceType == null
+                || !this.resourceTypes.contains(resourceType.toLowerCase(Locale.ROOT))) {
+            return null;
+        }
+        String key = key(url);
+        Entry entry = this.entries.get(key);
+        if (entry == null) {
+            this.misses++;
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            this.remove(key);
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        return entry;
+    }
+
+    /**
+     * 读线程上执行，只发出异步请求
+     */
+    private void onRequestFinished(CDPSession client, Request request) {
+        Response response = request.response();
+        if (this.closed || response == null || response.status() != 200 || !"GET".equalsIgnoreCase(request.method())
+                || request.resourceType() == null || !this.resourceTypes.contains(request.resourceType())) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = expiresAt(response.headers(), now);
+        if (expiresAt <= now) {
+            return;
+        }
+        String length = response.headers().get("content-length");
+        if (length != null && Builder.isNumber(length) && Long.parseLong(length) > this.maxEntryBytes) {
+            return;
+        }
+        String key = key(request.url());
+        synchronized (this) {
+            Entry existing = this.entries.get(key);
+            // 缓存响应的请求同样会完成，不需要再次保存
+            if (existing != null && existing.expiresAt > now) {
+                return;
+            }
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", request.requestId());
+        client.sendAsync("Network.getResponseBody", params).thenAcceptAsync(result -> {
+            if (result == null) {
+                return;
+            }
+            byte[] body = result.get("base64Encoded").asBoolean()
+                    ? Base64.getDecoder().decode(result.get("body").asText())
+                    : result.get("body").asText().getBytes(StandardCharsets.UTF_8);
+            this.store(key, response.headers(), body, expiresAt);
+        }).exceptionally(e -> {
+            Logger.debug("Skip caching {}: {}", request.url(), e.getMessage());
+            return null;
+        });
+    }
+
+    private void store(String key, Map<String, String> headers, byte[] body, long expiresAt) {
+        if (this.closed || body.length > this.maxEntryBytes) {
+            return;
+        }
+        List<HeaderEntry> responseHeaders = new ArrayList<>();
+        headers.forEach((name, value) -> {
+            if (!SKIPPED_HEADERS.contains(name)) {
+                responseHeaders.add(new HeaderEntry(name, value));
+            }
+        });
+        Path file = this.directory.resolve(hash(key) + "-" + System.nanoTime());
+        try {
+            Files.write(file, body);
+        } catch (IOException e) {
+            Logger.debug("Skip caching {}: {}", key, e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            if (this.closed) {
+                deleteQuietly(file);
+                return;
+            }
+            this.remove(key);
+            this.entries.put(key, new Entry(responseHeaders, file, body.length, expiresAt));
+            this.totalBytes += body.length;
+            Iterator<Map.Entry<String, Entry>> iterator = this.entries.entrySet().iterator();
+            while (this.totalBytes > this.maxBytes && iterator.hasNext()) {
+                Entry eldest = iterator.next().getValue();
+                iterator.remove();
+                this.totalBytes -= eldest.size;
+                deleteQuietly(eldest.file);
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = this.entries.remove(key);
+        if (entry != null) {
+            this.totalBytes -= entry.size;
+            deleteQuietly(entry.file);
+        }
+    }
+
+    /**
+     * 根据缓存头计算过期时间，不能缓存时返回 0
+     */
+    static long expiresAt(Map<String, String> headers, long now) {
+        String vary = headers.get("vary");
+        if (vary != null) {
+            for (String name : vary.split(",")) {
+                if (!"accept-encoding".equalsIgnoreCase(name.trim())) {
+                    return 0;
+                }
+            }
+        }
+        long age = parseSeconds(headers.get("age")) * 1000;
+        String cacheControl = headers.get("cache-control");
+        long maxAge = -1;
+        if (cacheControl != null) {
+            for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                directive = directive.trim();
+                if ("no-store".equals(directive) || "no-cache".equals(directive) || "private".equals(directive)) {
+                    return 0;
+                }
+                if (directive.startsWith("s-maxage=")) {
+                    maxAge = parseSeconds(directive.substring(9)) * 1000;
+                } else if (directive.startsWith("max-age=") && maxAge < 0) {
+                    maxAge = parseSeconds(directive.substring(8)) * 1000;
+                }
+            }
+        }
+        if (maxAge >= 0) {
+            return now + maxAge - age;
+        }
+        long date = parseDate(headers.get("date"), now);
+        String expires = headers.get("expires");
+        if (expires != null) {
+            return now + parseDate(expires, 0) - date - age;
+        }
+        String lastModified = headers.get("last-modified");
+        if (lastModified != null) {
+            long modified = parseDate(lastModified, date);
+            return now + Math.min((date - modified) / 10, MAX_HEURISTIC_MILLIS) - age;
+        }
+        return 0;
+    }
+
+    private static long parseSeconds(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim().replace("\"", "")));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long parseDate(String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String key(String url) {
+        int hash = url.indexOf('#');
+        return hash < 0 ? url : url.substring(0, hash);
+    }
+
+    private static String hash(String key) {
+        try {
+            return HexFormat.of()
+                    .formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new InternalException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            Logger.debug("Failed to delete cached asset {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 当前缓存的资源数
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * 当前缓存的总字节数
+     */
+    public synchronized long totalBytes() {
+        return this.totalBytes;
+    }
+
+    /**
+     * 命中率，还没有查询时为 0
+     */
+    public synchronized double hitRate() {
+        long total = this.hits + this.misses;
+        return total == 0 ? 0 : (double) this.hits / total;
+    }
+
+    /**
+     * 所有页面停止使用缓存并删除缓存文件
+     */
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        new ArrayList<>(this.listeners.keySet()).forEach(this::detach);
+        synchronized (this) {
+            this.entries.values().forEach(entry -> deleteQuietly(entry.file));
+            this.entries.clear();
+            this.totalBytes = 0;
+        }
+        if (this.ownsDirectory) {
+            deleteQuietly(this.directory);
+        }
+    }
+
+    /**
+     * 一个缓存的资源
+     */
+    static class Entry {
+
+        private final List<HeaderEntry> headers;
+        private final Path file;
+        private final long size;
+        private final long expiresAt;
+
+        Entry(List<HeaderEntry> headers, Path file, long size, long expiresAt) {
+            this.headers = headers;
+            this.file = file;
+            this.size = size;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Fetch.fulfillRequest 的参数，文件已经被淘汰时返回 null
+         *
+         * @param interceptionId 暂停的请求
+         * @return 参数
+         */
+        Map<String, Object> fulfillParams(String interceptionId) {
+            byte[] body;
+            try {
+                body = Files.readAllBytes(this.file);
+            } catch (IOException e) {
+                return null;
+            }
+            Map<String, Object> params = new HashMap<>();
+            params.put("requestId", interceptionId);
+            params.put("responseCode", 200);
+            params.put("responseHeaders", this.headers);
+            params.put("body", body);
+            return params;
+        }
+
+    }
+
+}
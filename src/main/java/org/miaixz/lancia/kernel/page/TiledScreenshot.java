@@ -0,0 +1,306 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.imageio.ImageIO;
+
+import org.miaixz.bus.core.lang.exception.InternalException;
+import org.miaixz.lancia.Builder;
+import org.miaixz.lancia.option.ScreenshotOptions;
+import org.miaixz.lancia.option.data.Clip;
+import org.miaixz.lancia.socket.CDPSession;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 分块整页截图
+ * <p>
+ * 按高度把页面切成若干块分别截图，每次只解码一块并立即写入输出，PNG按行流式编码，峰值内存只和块的大小有关
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class TiledScreenshot {
+
+    /**
+     * 默认每块的高度(CSS像素)
+     */
+    public static final int DEFAULT_TILE_HEIGHT = 4096;
+
+    private final CDPSession client;
+
+    public TiledScreenshot(CDPSession client) {
+        this.client = client;
+    }
+
+    /**
+     * 截取整个页面并写入输出流
+     *
+     * @param options       截图选项，只支持 png
+     * @param contentWidth  页面内容宽度(CSS像素)
+     * @param contentHeight 页面内容高度(CSS像素)
+     * @param out           输出流，不会被关闭
+     * @throws IOException 写入失败
+     */
+    public void capture(ScreenshotOptions options, double contentWidth, double contentHeight, OutputStream out)
+            throws IOException {
+        // JPEG 编码器需要完整的光栅，整张图片都要放在内存里，不符合分块截图的目的
+        if (options.getType() != null && !"png".equals(options.getType())) {
+            throw new InternalException("Tiled screenshots support png only, got " + options.getType()
+                    + "; use a regular full page screenshot for other formats");
+        }
+        double width = Math.ceil(contentWidth);
+        double height = Math.ceil(contentHeight);
+        int tileHeight = options.getTileHeight() > 0 ? options.getTileHeight() : DEFAULT_TILE_HEIGHT;
+        int tiles = Math.max(1, (int) Math.ceil(height / tileHeight));
+        int window = Math.max(1, options.getTileConcurrency());
+
+        Deque<CompletableFuture<JsonNode>> inflight = new ArrayDeque<>();
+        int next = 0;
+        Sink sink = null;
+        for (int i = 0; i < tiles; i++) {
+            while (next < tiles && inflight.size() < window) {
+                double y = (double) next * tileHeight;
+                inflight.add(this.captureTile(options, new Clip(0, y, width, Math.min(tileHeight, height - y), 1)));
+                next++;
+            }
+            BufferedImage tile = decode(Builder.await(inflight.poll()));
+            if (sink == null) {
+                // 第一块决定了设备像素比，也就决定了整张图片的像素尺寸
+                double scale = tile.getWidth() / width;
+                int pixelHeight = (int) Math.round(height * scale);
+                sink = new PngSink(out, tile.getWidth(), pixelHeight, options.isOmitBackground());
+            }
+            sink.write(tile);
+        }
+        sink.finish();
+    }
+
+    private CompletableFuture<JsonNode> captureTile(ScreenshotOptions options, Clip clip) {
+        Map<String, Object> params = new HashMap<>();
+        // 中间块统一使用无损的png，最后再按需要的格式编码
+        params.put("format", "png");
+        params.put("clip", clip);
+        params.put("captureBeyondViewport", true);
+        params.put("fromSurface", options.isFromSurface());
+        params.put("optimizeForSpeed", options.isOptimizeForSpeed());
+        return this.client.sendAsync("Page.captureScreenshot", params);
+    }
+
+    private static BufferedImage decode(JsonNode result) throws IOException {
+        byte[] bytes = Base64.getDecoder().decode(result.get("data").asText());
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+        if (image == null) {
+            throw new InternalException("Unable to decode screenshot tile");
+        }
+        return image;
+    }
+
+    /**
+     * 拼接后的图片输出
+     */
+    private interface Sink {
+
+        void write(BufferedImage tile) throws IOException;
+
+        void finish() throws IOException;
+
+    }
+
+    /**
+     * 按行流式编码的PNG，只保留当前行和上一行
+     */
+    private static class PngSink implements Sink {
+
+        private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+        private final OutputStream out;
+        private final int width;
+        private final int height;
+        private final int channels;
+        private final int[] argb;
+        private byte[] row;
+        private byte[] filtered;
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        private final DeflaterOutputStream idat;
+        private int written;
+
+        PngSink(OutputStream out, int width, int height, boolean alpha) throws IOException {
+            this.out = out;
+            this.width = width;
+            this.height = height;
+            this.channels = alpha ? 4 : 3;
+            this.argb = new int[width];
+            this.row = new byte[width * this.channels];
+            this.filtered = new byte[width * this.channels + 1];
+            out.write(SIGNATURE);
+            ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+            DataOutputStream data = new DataOutputStream(header);
+            data.writeInt(width);
+            data.writeInt(height);
+            data.writeByte(8);
+            data.writeByte(alpha ? 6 : 2);
+            data.writeByte(0);
+            data.writeByte(0);
+            data.writeByte(0);
+            writeChunk(out, "IHDR", header.toByteArray(), header.size());
+            this.idat = new DeflaterOutputStream(new ChunkOutputStream(out, "IDAT"), this.deflater, 64 * 1024);
+        }
+
+        @Override
+        public void write(BufferedImage tile) throws IOException {
+            int w = Math.min(this.width, tile.getWidth());
+            for (int y = 0; y < tile.getHeight() && this.written < this.height; y++) {
+                tile.getRGB(0, y, w, 1, this.argb, 0, this.width);
+                if (w < this.width) {
+                    // 比整张图窄的块，右侧补透明像素，不能留着上一行的内容
+                    Arrays.fill(this.argb, w, this.width, 0);
+                }
+                this.writeRow();
+            }
+        }
+
+        private void writeRow() throws IOException {
+            int c = this.channels;
+            for (int x = 0; x < this.width; x++) {
+                int p = this.argb[x];
+                int i = x * c;
+                this.row[i] = (byte) (p >> 16);
+                this.row[i + 1] = (byte) (p >> 8);
+                this.row[i + 2] = (byte) p;
+                if (c == 4) {
+                    this.row[i + 3] = (byte) (p >>> 24);
+                }
+            }
+            // Sub 过滤，和左侧像素做差，长页面上能明显提高压缩率
+            this.filtered[0] = 1;
+            for (int i = 0; i < this.row.length; i++) {
+                this.filtered[i + 1] = (byte) (this.row[i] - (i >= c ? this.row[i - c] : 0));
+            }
+            this.idat.write(this.filtered);
+            this.written++;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            // 设备像素取整可能少几行，用最后一行补齐
+            while (this.written < this.height) {
+                this.idat.write(this.filtered);
+                this.written++;
+            }
+            this.idat.close();
+            this.deflater.end();
+            writeChunk(this.out, "IEND", new byte[0], 0);
+            this.out.flush();
+        }
+
+        private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+            byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+            CRC32 crc = new CRC32();
+            crc.update(name);
+            crc.update(data, 0, length);
+            DataOutputStream stream = new DataOutputStream(out);
+            stream.writeInt(length);
+            stream.write(name);
+            stream.write(data, 0, length);
+            stream.writeInt((int) crc.getValue());
+            stream.flush();
+        }
+
+        /**
+         * 把压缩后的数据切成若干IDAT块写出，关闭时不关闭底层的输出流
+         */
+        private static class ChunkOutputStream extends OutputStream {
+
+            private final OutputStream out;
+            private final String type;
+            private final byte[] buffer = new byte[64 * 1024];
+            private int count;
+
+            ChunkOutputStream(OutputStream out, String type) {
+                this.out = out;
+                this.type = type;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                if (this.count == this.buffer.length) {
+                    this.flushChunk();
+                }
+                this.buffer[this.count++] = (byte) b;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                while (len > 0) {
+                    if (this.count == this.buffer.length) {
+                        this.flushChunk();
+                    }
+                    int n = Math.min(len, this.buffer.length - this.count);
+                    System.arraycopy(b, off, this.buffer, this.count, n);
+                    this.count += n;
+                    off += n;
+                    len -= n;
+                }
+            }
+
+            private void flushChunk() throws IOException {
+                if (this.count > 0) {
+                    writeChunk(this.out, this.type, this.buffer, this.count);
+                    this.count = 0;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                this.flushChunk();
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,238 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.kernel.page;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import org.miaixz.bus.logger.Logger;
+import org.miaixz.lancia.Builder;
+import org.miaixz.lancia.nimble.runtime.BindingCalledEvent;
+import org.miaixz.lancia.socket.CDPSession;
+import org.miaixz.lancia.worker.enums.CDPSessionEvent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 等待引擎
+ * <p>
+ * 每个执行上下文中只有一个页内引擎，所有等待任务共用一个 MutationObserver 和一个 requestAnimationFrame 循环；
+ * 条件满足时通过 Runtime.addBinding 注册的函数通知 Java，注册等待只需要一次不阻塞的调用，不再轮询
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class WaitEngine {
+
+    /**
+     * 页面中用于通知的 binding 名称
+     */
+    public static final String BINDING = "__lancia_wait_notify";
+
+    /**
+     * 安装页内引擎并注册一个任务，参数为 binding、任务id、条件函数体、轮询方式、超时和条件函数的参数
+     */
+    private static final String REGISTER_FUNCTION = "(binding, id, predicateBody, polling, timeout, ...args) => {\n"
+            + "  let engine = globalThis.__lanciaWait;\n"
+            + "  if (!engine) {\n"
+            + "    const tasks = new Map();\n"
+            + "    const results = new Map();\n"
+            + "    let observer = null;\n"
+            + "    let rafScheduled = false;\n"
+            + "    const notify = (payload) => globalThis[binding](JSON.stringify(payload));\n"
+            + "    const remove = (id) => {\n"
+            + "      const task = tasks.get(id);\n"
+            + "      if (!task) return;\n"
+            + "      tasks.delete(id);\n"
+            + "      if (task.interval) clearInterval(task.interval);\n"
+            + "      if (task.timer) clearTimeout(task.timer);\n"
+            + "      update();\n"
+            + "    };\n"
+            + "    const run = (task) => {\n"
+            + "      let value;\n"
+            + "      try {\n"
+            + "        value = task.predicate(...task.args);\n"
+            + "      } catch (e) {\n"
+            + "        remove(task.id);\n"
+            + "        notify({ id: task.id, error: String(e && e.stack || e) });\n"
+            + "        return;\n"
+            + "      }\n"
+            + "      if (!value) return;\n"
+            + "      remove(task.id);\n"
+            + "      results.set(task.id, value);\n"
+            + "      notify({ id: task.id });\n"
+            + "    };\n"
+            + "    const runAll = (polling) => {\n"
+            + "      for (const task of [...tasks.values()]) if (task.polling === polling) run(task);\n"
+            + "    };\n"
+            + "    const onRaf = () => {\n"
+            + "      rafScheduled = false;\n"
+            + "      runAll('raf');\n"
+            + "      update();\n"
+            + "    };\n"
+            + "    const update = () => {\n"
+            + "      const all = [...tasks.values()];\n"
+            + "      const mutation = all.some(task => task.polling === 'mutation');\n"
+            + "      if (mutation && !observer) {\n"
+            + "        observer = new MutationObserver(() => runAll('mutation'));\n"
+            + "        observer.observe(document, { childList: true, subtree: true, attributes: true });\n"
+            + "      } else if (!mutation && observer) {\n"
+            + "        observer.disconnect();\n"
+            + "        observer = null;\n"
+            + "      }\n"
+            + "      if (!rafScheduled && all.some(task => task.polling === 'raf')) {\n"
+            + "        rafScheduled = true;\n"
+            + "        requestAnimationFrame(onRaf);\n"
+            + "      }\n"
+            + "    };\n"
+            + "    engine = globalThis.__lanciaWait = {\n"
+            + "      add(id, predicateBody, polling, timeout, args) {\n"
+            + "        const task = { id, polling, args, predicate: new Function('...args', predicateBody) };\n"
+            + "        tasks.set(id, task);\n"
+            + "        if (typeof polling === 'number') task.interval = setInterval(() => run(task), polling);\n"
+            + "        if (timeout) task.timer = setTimeout(() => remove(id), timeout);\n"
+            + "        update();\n"
+            + "        run(task);\n"
+            + "      },\n"
+            + "      take(id) {\n"
+            + "        const value = results.get(id);\n"
+            + "        results.delete(id);\n"
+            + "        return value;\n"
+            + "      },\n"
+            + "      remove\n"
+            + "    };\n"
+            + "  }\n"
+            + "  engine.add(id, predicateBody, polling, timeout, args);\n"
+            + "}";
+
+    /**
+     * 取走已经满足的任务的结果
+     */
+    static final String TAKE_FUNCTION = "(id) => globalThis.__lanciaWait.take(id)";
+
+    private final String utilityWorldName;
+    private final Map<Long, WaitTask> tasks = new ConcurrentHashMap<>();
+    private final Set<CDPSession> clients = ConcurrentHashMap.newKeySet();
+    private final Consumer<BindingCalledEvent> listener = this::onBindingCalled;
+
+    public WaitEngine(String utilityWorldName) {
+        this.utilityWorldName = utilityWorldName;
+    }
+
+    /**
+     * 在执行上下文中注册等待任务，调用立即返回，条件满足时回调 {@link WaitTask#resolve}
+     *
+     * @param context 执行上下文
+     * @param task    等待任务
+     */
+    void register(ExecutionContext context, WaitTask task) {
+        this.ensureBinding(context.getClient());
+        this.tasks.put(task.id(), task);
+        List<Object> args = new ArrayList<>();
+        args.add(BINDING);
+        args.add(task.id());
+        args.add(task.predicateBody());
+        args.add(Builder.isNumber(task.polling()) ? (Object) Double.valueOf(task.polling()) : task.polling());
+        args.add(task.timeout());
+        args.addAll(task.args());
+        context.evaluate(REGISTER_FUNCTION, args);
+    }
+
+    /**
+     * 取消任务，页内的任务异步移除
+     *
+     * @param context 任务所在的执行上下文，可以为 null
+     * @param task    等待任务
+     */
+    void unregister(ExecutionContext context, WaitTask task) {
+        this.tasks.remove(task.id());
+        if (context == null) {
+            return;
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("expression", "globalThis.__lanciaWait && globalThis.__lanciaWait.remove(" + task.id() + ")");
+        params.put("contextId", context.getContextId());
+        try {
+            context.getClient().send("Runtime.evaluate", params, null, false);
+        } catch (Exception e) {
+            // 上下文已经销毁
+        }
+    }
+
+    private void ensureBinding(CDPSession client) {
+        if (this.clients.contains(client)) {
+            return;
+        }
+        synchronized (this) {
+            if (this.clients.contains(client)) {
+                return;
+            }
+            client.on(CDPSessionEvent.Runtime_bindingCalled, this.listener);
+            // 会话断开后移除监听，不再持有关闭的页面和frame的会话
+            client.once(CDPSessionEvent.CDPSession_Disconnected, event -> {
+                client.off(CDPSessionEvent.Runtime_bindingCalled, this.listener);
+                this.clients.remove(client);
+            });
+            Map<String, Object> params = new HashMap<>();
+            params.put("name", BINDING);
+            client.send("Runtime.addBinding", params);
+            params.put("executionContextName", this.utilityWorldName);
+            client.send("Runtime.addBinding", params);
+            this.clients.add(client);
+        }
+    }
+
+    private void onBindingCalled(BindingCalledEvent event) {
+        if (!BINDING.equals(event.getName())) {
+            return;
+        }
+        JsonNode payload;
+        try {
+            payload = Builder.OBJECTMAPPER.readTree(event.getPayload());
+        } catch (Exception e) {
+            Logger.warn("Invalid wait payload: {}", event.getPayload());
+            return;
+        }
+        long id = payload.get("id").asLong();
+        WaitTask task = this.tasks.get(id);
+        // 旧上下文的通知可能在任务重新注册到新上下文之后才到达，不能消耗新的注册
+        if (task == null || !task.isRegisteredIn(event.getExecutionContextId()) || !this.tasks.remove(id, task)) {
+            return;
+        }
+        String error = payload.hasNonNull("error") ? payload.get("error").asText() : null;
+        // 取结果需要一次协议往返，不能在读线程上等待
+        ForkJoinPool.commonPool().execute(() -> task.resolve(event.getExecutionContextId(), error));
+    }
+
+}
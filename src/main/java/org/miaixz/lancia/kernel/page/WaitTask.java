@@ -29,43 +29,54 @@ package org.miaixz.lancia.kernel.page;
 
 import java.math.BigDecimal;
 import java.text.MessageFormat;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.miaixz.bus.core.lang.Assert;
+import org.miaixz.bus.core.lang.exception.InternalException;
 import org.miaixz.bus.core.xyz.StringKit;
 import org.miaixz.bus.logger.Logger;
 import org.miaixz.lancia.Builder;
 import org.miaixz.lancia.worker.enums.PageEvaluateType;
+
 /**
  * 等待任务
+ * <p>
+ * 任务注册到 {@link WaitEngine} 后立即返回，条件满足时由页面推送通知；执行上下文被替换时 {@link DOMWorld} 会调用 {@link #rerun()} 重新注册
  *
  * @author Kimi Liu
  * @since Java 17+
  */
 public class WaitTask {
 
-    private AtomicInteger runCount;
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private final long id = IDS.incrementAndGet();
 
-    private boolean terminated;
+    private final CompletableFuture<JSHandle> promise = new CompletableFuture<>();
 
-    private JSHandle promise;
+    private volatile boolean terminated;
 
-    private DOMWorld domWorld;
+    /**
+     * 当前注册所在的执行上下文
+     */
+    private volatile ExecutionContext context;
 
-    private String polling;
+    private final DOMWorld domWorld;
 
-    private int timeout;
+    private final String title;
 
-    private String predicateBody;
+    private final String polling;
 
-    private List<Object> args;
+    private final int timeout;
 
-    private CountDownLatch waitPromiseLatch;
+    private final String predicateBody;
+
+    private final List<Object> args;
 
     public WaitTask(DOMWorld domWorld, String predicateBody, String predicateQueryHandlerBody, PageEvaluateType type,
             String title, String polling, int timeout, List<Object> args) {
@@ -76,6 +87,7 @@ public class WaitTask {
             Assert.isTrue("raf".equals(polling) || "mutation".equals(polling), "Unknown polling option: " + polling);
         }
         this.domWorld = domWorld;
+        this.title = title;
         this.polling = polling;
         this.timeout = timeout;
         if (PageEvaluateType.STRING.equals(type)) {
@@ -89,110 +101,94 @@ public class WaitTask {
                 this.predicateBody = "return (" + predicateBody + ")(...args);";
             }
         }
-        this.args = args;
-        this.runCount = new AtomicInteger(0);
+        this.args = args == null ? Collections.emptyList() : args;
         domWorld.getWaitTasks().add(this);
-        // Since page navigation requires us to re-install the pageScript, we should track
-        // timeout on our end.
-
-        long start = System.currentTimeMillis();
         this.rerun();
-        long end = System.currentTimeMillis();
-        if (timeout > 0 && (end - start) > timeout) {
-            this.terminate(new RuntimeException(
-                    MessageFormat.format("waiting for {0} failed: timeout {1}ms exceeded", title, timeout)));
-        }
     }
 
+    /**
+     * 在当前的执行上下文中注册任务
+     */
     public void rerun() {
-        int runcount = runCount.incrementAndGet();
-        RuntimeException error = null;
-        JSHandle success = null;
+        if (this.terminated || this.promise.isDone()) {
+            return;
+        }
         try {
-            List<Object> args = new ArrayList<>();
-            args.add(this.predicateBody);
-            args.add(this.polling);
-            args.add(this.timeout);
-            args.addAll(this.args);
             ExecutionContext context = this.domWorld.executionContext();
-            success = (JSHandle) context.evaluateHandle(waitForPredicatePageFunction(), args);
-
-            if (this.terminated || runcount != this.runCount.get()) {
-                if (success != null)
-                    success.dispose();
-                return;
-            }
+            this.context = context;
+            this.engine().register(context, this);
         } catch (RuntimeException e) {
-            error = e;
-        }
-        // Ignore timeouts in pageScript - we track timeouts ourselves.
-        // If the frame's execution context has already changed, `frame.evaluate` will
-        // throw an error - ignore this predicate run altogether.
-        boolean isChanged = false;
-        try {
-            this.domWorld.evaluate("s => !s", Arrays.asList(success));
-        } catch (Exception e) {
-            isChanged = true;
+            // 上下文已经被替换，新的上下文创建后会重新注册
+            if (!isContextGone(e)) {
+                this.fail(e);
+            }
         }
+    }
 
-        if (error == null && isChanged) {
-            success.dispose();
-            return;
-        }
+    /**
+     * @param executionContextId 执行上下文
+     * @return 任务当前是否注册在该执行上下文中
+     */
+    boolean isRegisteredIn(int executionContextId) {
+        ExecutionContext context = this.context;
+        return context != null && context.getContextId() == executionContextId;
+    }
 
-        // When the page is navigated, the promise is rejected.
-        // Try again right away.
-        if (error != null && error.getMessage().contains("Execution context was destroyed")) {
+    /**
+     * 页面通知条件已经满足，取回结果
+     *
+     * @param executionContextId 发出通知的执行上下文
+     * @param error              条件函数抛出的异常，没有时为 null
+     */
+    void resolve(int executionContextId, String error) {
+        ExecutionContext context = this.context;
+        if (this.terminated || this.promise.isDone() || context == null
+                || context.getContextId() != executionContextId) {
             return;
         }
-        if (error != null && error.getMessage().contains("Cannot find context with specified id"))
-            return;
         if (error != null) {
-            throw error;
-        } else {
-            this.promise = success;
+            this.fail(new InternalException("Evaluation failed: " + error));
+            return;
         }
-        if (waitPromiseLatch != null) {
-            waitPromiseLatch.countDown();
+        try {
+            JSHandle handle = (JSHandle) context.evaluateHandleUnscoped(WaitEngine.TAKE_FUNCTION,
+                    Collections.singletonList(this.id));
+            if (!this.promise.complete(handle)) {
+                handle.dispose(false);
+            }
+            this.cleanup();
+        } catch (RuntimeException e) {
+            if (!isContextGone(e)) {
+                this.fail(e);
+            }
         }
+    }
+
+    public void terminate(RuntimeException e) {
+        this.terminated = true;
+        Logger.error("", e);
+        this.engine().unregister(this.context, this);
+        this.promise.complete(null);
         this.cleanup();
     }
 
-    private String waitForPredicatePageFunction() {
-
-        return "async function waitForPredicatePageFunction(predicateBody, polling, timeout, ...args) {\n"
-                + "  const predicate = new Function('...args', predicateBody);\n" + "  let timedOut = false;\n"
-                + "  if (timeout)\n" + "    setTimeout(() => timedOut = true, timeout);\n"
-                + "  if (polling === 'raf')\n" + "    return await pollRaf();\n" + "  if (polling === 'mutation')\n"
-                + "    return await pollMutation();\n" + "  if (typeof polling === 'number')\n"
-                + "    return await pollInterval(polling);\n" + "\n" + "  /**\n" + "   * @return {!Promise<*>}\n"
-                + "   */\n" + "  function pollMutation() {\n" + "    const success = predicate.apply(null, args);\n"
-                + "    if (success)\n" + "      return Promise.resolve(success);\n" + "\n" + "    let fulfill;\n"
-                + "    const result = new Promise(x => fulfill = x);\n"
-                + "    const observer = new MutationObserver(mutations => {\n" + "      if (timedOut) {\n"
-                + "        observer.disconnect();\n" + "        fulfill();\n" + "      }\n"
-                + "      const success = predicate.apply(null, args);\n" + "      if (success) {\n"
-                + "        observer.disconnect();\n" + "        fulfill(success);\n" + "      }\n" + "    });\n"
-                + "    observer.observe(document, {\n" + "      childList: true,\n" + "      subtree: true,\n"
-                + "      attributes: true\n" + "    });\n" + "    return result;\n" + "  }\n" + "\n" + "  /**\n"
-                + "   * @return {!Promise<*>}\n" + "   */\n" + "  function pollRaf() {\n" + "    let fulfill;\n"
-                + "    const result = new Promise(x => fulfill = x);\n" + "    onRaf();\n" + "    return result;\n"
-                + "\n" + "    function onRaf() {\n" + "      if (timedOut) {\n" + "        fulfill();\n"
-                + "        return;\n" + "      }\n" + "      const success = predicate.apply(null, args);\n"
-                + "      if (success)\n" + "        fulfill(success);\n" + "      else\n"
-                + "        requestAnimationFrame(onRaf);\n" + "    }\n" + "  }\n" + "\n" + "  /**\n"
-                + "   * @param {number} pollInterval\n" + "   * @return {!Promise<*>}\n" + "   */\n"
-                + "  function pollInterval(pollInterval) {\n" + "    let fulfill;\n"
-                + "    const result = new Promise(x => fulfill = x);\n" + "    onTimeout();\n" + "    return result;\n"
-                + "\n" + "    function onTimeout() {\n" + "      if (timedOut) {\n" + "        fulfill();\n"
-                + "        return;\n" + "      }\n" + "      const success = predicate.apply(null, args);\n"
-                + "      if (success)\n" + "        fulfill(success);\n" + "      else\n"
-                + "        setTimeout(onTimeout, pollInterval);\n" + "    }\n" + "  }\n" + "}";
+    /**
+     * 不再需要结果时安静地取消任务
+     */
+    void cancel() {
+        if (this.terminated || this.promise.isDone()) {
+            return;
+        }
+        this.terminated = true;
+        this.engine().unregister(this.context, this);
+        this.promise.complete(null);
+        this.cleanup();
     }
 
-    public void terminate(RuntimeException e) {
+    private void fail(RuntimeException e) {
         this.terminated = true;
-        Logger.error("", e);
+        this.engine().unregister(this.context, this);
+        this.promise.completeExceptionally(e);
         this.cleanup();
     }
 
@@ -200,17 +196,63 @@ public class WaitTask {
         this.domWorld.getWaitTasks().remove(this);
     }
 
+    private WaitEngine engine() {
+        return this.domWorld.getFrameManager().waitEngine();
+    }
+
+    private static boolean isContextGone(RuntimeException e) {
+        String message = e.getMessage();
+        return message != null && (message.contains("Execution context was destroyed")
+                || message.contains("Cannot find context with specified id"));
+    }
+
+    /**
+     * 等待条件满足
+     *
+     * @return 条件函数的返回值，超时或者任务被终止时为 null
+     * @throws InterruptedException 等待被中断
+     */
     public JSHandle getPromise() throws InterruptedException {
-        if (promise != null) {
-            return promise;
+        try {
+            return this.timeout > 0 ? this.promise.get(this.timeout, TimeUnit.MILLISECONDS) : this.promise.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new InternalException(e.getCause());
+        } catch (java.util.concurrent.TimeoutException e) {
+            this.terminate(new RuntimeException(
+                    MessageFormat.format("waiting for {0} failed: timeout {1}ms exceeded", this.title, this.timeout)));
+            return null;
         }
-        waitPromiseLatch = new CountDownLatch(1);
-        waitPromiseLatch.await(this.timeout, TimeUnit.MILLISECONDS);
-        return promise;
     }
 
     public void setPromise(ElementHandle promise) {
-        this.promise = promise;
+        this.promise.complete(promise);
+    }
+
+    CompletableFuture<JSHandle> future() {
+        return this.promise;
+    }
+
+    long id() {
+        return this.id;
+    }
+
+    String predicateBody() {
+        return this.predicateBody;
+    }
+
+    String polling() {
+        return this.polling;
+    }
+
+    int timeout() {
+        return this.timeout;
+    }
+
+    List<Object> args() {
+        return this.args;
     }
 
 }
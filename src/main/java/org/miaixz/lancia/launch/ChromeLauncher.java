@@ -76,6 +76,10 @@ public class ChromeLauncher implements Launcher {
 
     private String projectRoot;
     private String preferredRevision;
+    /**
+     * 浏览器产品：chrome or chrome-headless-shell
+     */
+    private String product = "chrome";
 
     public ChromeLauncher() {
 
@@ -87,6 +91,13 @@ public class ChromeLauncher implements Launcher {
         this.preferredRevision = preferredRevision;
     }
 
+    public ChromeLauncher(String projectRoot, String preferredRevision, String product) {
+        this(projectRoot, preferredRevision);
+        if (StringKit.isNotEmpty(product)) {
+            this.product = product;
+        }
+    }
+
     public static final String toString(InputStream in) throws IOException {
         StringWriter wirter = null;
         InputStreamReader reader = null;
@@ -140,7 +151,8 @@ public class ChromeLauncher implements Launcher {
 
         String chromeExecutable;
         try {
-            chromeExecutable = resolveExecutablePath(options.getExecutablePath());
+            chromeExecutable = resolveExecutablePath(options.getExecutablePath(),
+                    isHeadlessShell(options) ? Builder.CHROME_HEADLESS_SHELL : this.product);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -155,7 +167,8 @@ public class ChromeLauncher implements Launcher {
             Runnable closeCallback = runner::closeBrowser;
             Browser browser = Browser.create("chrome", connection, new ArrayList<>(), options.isAcceptInsecureCerts(),
                     options.getDefaultViewport(), runner.getProcess(), closeCallback, options.getTargetFilter(), null,
-                    true);
+                    true, options.getAttachPolicy());
+            browser.setLeanPages(options.isLeanPages());
             if (options.isWaitForInitialPage()) {
                 browser.waitForTarget(t -> TargetType.PAGE.equals(t.type()), options.getTimeout());
             }
@@ -214,19 +227,21 @@ public class ChromeLauncher implements Launcher {
         }
         boolean devtools = options.isDevtools();
         boolean headless = options.isHeadless();
-        if (devtools) {
+        boolean headlessShell = isHeadlessShell(options);
+        if (devtools && !headlessShell) {
             chromeArguments.add("--auto-open-devtools-for-tabs");
             // 如果打开devtools，那么headless强制变为false
             headless = false;
         }
-        if (headless) {
-            if (options.isHeadlessShell()) {
-                chromeArguments.add("--headless");
-            } else {
-                chromeArguments.add("--headless=new");
-                chromeArguments.add("--hide-scrollbars");
-                chromeArguments.add("--mute-audio");
-            }
+        if (headlessShell) {
+            // chrome-headless-shell 只能以无头模式运行
+            chromeArguments.add("--headless");
+            chromeArguments.add("--hide-scrollbars");
+            chromeArguments.add("--mute-audio");
+        } else if (headless) {
+            chromeArguments.add("--headless=new");
+            chromeArguments.add("--hide-scrollbars");
+            chromeArguments.add("--mute-audio");
         }
         List<String> args;
         if (CollKit.isNotEmpty(args = options.getArgs())) {
@@ -264,8 +279,31 @@ public class ChromeLauncher implements Launcher {
      */
     @Override
     public String resolveExecutablePath(String chromeExecutable) throws IOException {
+        return resolveExecutablePath(chromeExecutable, this.product());
+    }
+
+    /**
+     * 是否使用 chrome-headless-shell 启动
+     *
+     * @param options 启动参数
+     * @return true表示使用 chrome-headless-shell
+     */
+    private boolean isHeadlessShell(LaunchOptions options) {
+        return options.isHeadlessShell() || Builder.CHROME_HEADLESS_SHELL.equals(options.getProduct())
+                || Builder.CHROME_HEADLESS_SHELL.equals(this.product);
+    }
+
+    /**
+     * 解析指定产品的可执行路径，找不到 chrome-headless-shell 时退回到 chrome
+     *
+     * @param chromeExecutable 指定的可执行路径
+     * @param product          chrome or chrome-headless-shell
+     * @return 返回解析后的可执行路径
+     */
+    private String resolveExecutablePath(String chromeExecutable, String product) throws IOException {
+        boolean headlessShell = Builder.CHROME_HEADLESS_SHELL.equals(product);
         FetcherOptions fetcherOptions = new FetcherOptions();
-        fetcherOptions.setProduct(this.product());
+        fetcherOptions.setProduct(product);
         Fetcher fetcher = new Fetcher(this.projectRoot, fetcherOptions);
         // 指定了启动路径，则启动指定路径的chrome
         if (StringKit.isNotEmpty(chromeExecutable)) {
@@ -311,6 +349,14 @@ public class ChromeLauncher implements Launcher {
             }
             return revisionInfo.getExecutablePath();
         }
+        if (headlessShell) {
+            Revision revisionInfo = fetcher.revisionInfo(this.preferredRevision);
+            if (revisionInfo.isLocal()) {
+                return revisionInfo.getExecutablePath();
+            }
+            Logger.warn("chrome-headless-shell {} is not downloaded, fall back to chrome", this.preferredRevision);
+            return resolveExecutablePath(null, "chrome");
+        }
         // 寻找可能存在的启动路径
         for (int i = 0; i < Builder.PROBABLE_CHROME_EXECUTABLE_PATH.length; i++) {
             chromeExecutable = Builder.PROBABLE_CHROME_EXECUTABLE_PATH[i];
@@ -355,9 +401,11 @@ public class ChromeLauncher implements Launcher {
             List<String> browserContextIds;
             Runnable closeFunction = () -> connection.send("Browser.close");
             browserContextIds = Builder.OBJECTMAPPER.readerFor(javaType).readValue(result.get("browserContextIds"));
-            return Browser.create("chrome", connection, browserContextIds, options.isAcceptInsecureCerts(),
+            Browser browser = Browser.create("chrome", connection, browserContextIds, options.isAcceptInsecureCerts(),
                     options.getDefaultViewport(), null, closeFunction, options.getTargetFilter(),
-                    options.getIsPageTarget(), true);
+                    options.getIsPageTarget(), true, options.getAttachPolicy());
+            browser.setLeanPages(options.isLeanPages());
+            return browser;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -369,7 +417,7 @@ public class ChromeLauncher implements Launcher {
     }
 
     public String product() {
-        return "chrome";
+        return this.product;
     }
 
     /**
@@ -0,0 +1,200 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.launch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.miaixz.bus.core.lang.Assert;
+import org.miaixz.bus.core.lang.exception.LaunchException;
+import org.miaixz.lancia.Browser;
+import org.miaixz.lancia.Builder;
+import org.miaixz.lancia.Launcher;
+import org.miaixz.lancia.option.LaunchOptions;
+import org.miaixz.lancia.worker.enums.BrowserEvent;
+
+/**
+ * 多浏览器并发启动器，在有限的并发度下同时启动多个浏览器实例，并行、限时地关闭它们
+ * <p>
+ * {@link ChromeLauncher#launch(LaunchOptions)} 会修改传入的启动参数，因此每个浏览器实例都应该使用独立的 {@link LaunchOptions}，
+ * 批量启动时通过 {@link Supplier} 为每个实例生成一份新的参数
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+public class ConcurrentLauncher implements AutoCloseable {
+
+    private final Launcher launcher;
+    private final ExecutorService executor;
+    private final Set<Browser> browsers = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * 创建并发启动器，使用默认的 {@link ChromeLauncher}
+     *
+     * @param parallelism 同时启动的浏览器数量上限
+     */
+    public ConcurrentLauncher(int parallelism) {
+        this(new ChromeLauncher(System.getProperty("user.dir"), Builder.VERSION), parallelism);
+    }
+
+    /**
+     * 创建并发启动器
+     *
+     * @param launcher    实际执行启动的启动器
+     * @param parallelism 同时启动的浏览器数量上限
+     */
+    public ConcurrentLauncher(Launcher launcher, int parallelism) {
+        Assert.notNull(launcher, "launcher must not be null");
+        Assert.isTrue(parallelism > 0, "parallelism must be positive");
+        this.launcher = launcher;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "lancia-launcher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 异步启动一个浏览器，超过并发度的启动请求会排队等待
+     *
+     * @param options 启动参数，不要在多个启动请求之间共享
+     * @return 浏览器实例的 future
+     */
+    public CompletableFuture<Browser> launchAsync(LaunchOptions options) {
+        Assert.isTrue(!this.closed, "ConcurrentLauncher has been closed");
+        try {
+            return CompletableFuture.supplyAsync(() -> this.launchTracked(options), this.executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new LaunchException("ConcurrentLauncher has been closed"));
+        }
+    }
+
+    private Browser launchTracked(LaunchOptions options) {
+        if (this.closed) {
+            // 关闭前已经排队的启动请求不再执行
+            throw new LaunchException("ConcurrentLauncher has been closed");
+        }
+        Browser browser = this.launcher.launch(options);
+        if (browser == null) {
+            throw new LaunchException("Failed to launch the browser process");
+        }
+        this.track(browser);
+        if (this.closed) {
+            // 关闭期间完成的启动，浏览器不在关闭的快照中，需要单独关闭
+            this.close(List.of(browser), Builder.DEFAULT_TIMEOUT);
+            throw new LaunchException("ConcurrentLauncher has been closed");
+        }
+        return browser;
+    }
+
+    /**
+     * 并发启动多个浏览器，全部启动成功后返回；任一失败时关闭已启动的实例并抛出异常
+     *
+     * @param options 启动参数的生成器，每个实例调用一次
+     * @param count   启动的浏览器数量
+     * @return 浏览器实例集合
+     */
+    public List<Browser> launch(Supplier<LaunchOptions> options, int count) {
+        List<CompletableFuture<Browser>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(this.launchAsync(options.get()));
+        }
+        List<Browser> result = new ArrayList<>(count);
+        RuntimeException error = null;
+        for (CompletableFuture<Browser> future : futures) {
+            try {
+                result.add(future.join());
+            } catch (CompletionException e) {
+                if (error == null) {
+                    error = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        if (error != null) {
+            this.close(result, Builder.DEFAULT_TIMEOUT);
+            throw error;
+        }
+        return result;
+    }
+
+    /**
+     * 当前由该启动器管理且仍在运行的浏览器
+     *
+     * @return 浏览器实例集合
+     */
+    public List<Browser> browsers() {
+        return new ArrayList<>(this.browsers);
+    }
+
+    /**
+     * 并行关闭给定的浏览器，超时未关闭的浏览器进程会被强制结束
+     *
+     * @param targets 要关闭的浏览器
+     * @param timeout 总超时时间，单位毫秒
+     * @return 超时仍未关闭的浏览器数量
+     */
+    public int close(List<Browser> targets, long timeout) {
+        return Builder.closeInParallel(targets, browser -> {
+            try {
+                browser.close();
+            } finally {
+                this.browsers.remove(browser);
+            }
+        }, Browser::process, timeout);
+    }
+
+    /**
+     * 停止接受新的启动请求，并行关闭所有浏览器
+     *
+     * @param timeout 总超时时间，单位毫秒
+     * @return 超时仍未关闭的浏览器数量
+     */
+    public int shutdown(long timeout) {
+        this.closed = true;
+        // 不能丢弃排队的任务，否则它们的 future 永远不会完成；排队的任务检查到 closed 后直接失败
+        this.executor.shutdown();
+        return this.close(this.browsers(), timeout);
+    }
+
+    @Override
+    public void close() {
+        this.shutdown(Builder.DEFAULT_TIMEOUT);
+    }
+
+    private void track(Browser browser) {
+        this.browsers.add(browser);
+        browser.once(BrowserEvent.Disconnected, ignore -> this.browsers.remove(browser));
+    }
+
+}
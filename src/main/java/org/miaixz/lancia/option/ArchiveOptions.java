@@ -0,0 +1,80 @@
+/*
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+ ~                                                                               ~
+ ~ The MIT License (MIT)                                                         ~
+ ~                                                                               ~
+ ~ Copyright (c) 2015-2024 miaixz.org and other contributors.                    ~
+ ~                                                                               ~
+ ~ Permission is hereby granted, free of charge, to any person obtaining a copy  ~
+ ~ of this software and associated documentation files (the "Software"), to deal ~
+ ~ in the Software without restriction, including without limitation the rights  ~
+ ~ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     ~
+ ~ copies of the Software, and to permit persons to whom the Software is         ~
+ ~ furnished to do so, subject to the following conditions:                      ~
+ ~                                                                               ~
+ ~ The above copyright notice and this permission notice shall be included in    ~
+ ~ all copies or substantial portions of the Software.                           ~
+ ~                                                                               ~
+ ~ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    ~
+ ~ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      ~
+ ~ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   ~
+ ~ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        ~
+ ~ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, ~
+ ~ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     ~
+ ~ THE SOFTWARE.                                                                 ~
+ ~                                                                               ~
+ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~ ~
+*/
+package org.miaixz.lancia.option;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * 网络回放时请求的匹配选项
+ *
+ * @author Kimi Liu
+ * @since Java 17+
+ */
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveOptions {
+
+    /**
+     * 是否要求请求方法相同
+     */
+    @Builder.Default
+    private boolean matchMethod = true;
+    /**
+     * 是否要求查询参数相同，为 false 时只比较查询参数之前的部分
+     */
+    @Builder.Default
+    private boolean matchQuery = true;
+    /**
+     * 比较前是否按参数名排序查询参数
+     */
+    @Builder.Default
+    private boolean sortQuery = true;
+    /**
+     * 比较时忽略的查询参数，比如时间戳之类的防缓存参数
+     */
+    @Builder.Default
+    private List<String> ignoreQueryParams = new ArrayList<>();
+    /**
+     * 是否要求请求体的摘要相同
+     */
+    @Builder.Default
+    private boolean matchBody = true;
+    /**
+     * 没有匹配的记录时是否继续访问网络，为 false 时请求失败
+     */
+    @Builder.Default
+    private boolean fallthrough = true;
+
+}
@@ -30,6 +30,7 @@ package org.miaixz.lancia.option;
 import java.util.function.Function;
 
 import org.miaixz.lancia.kernel.page.Target;
+import org.miaixz.lancia.option.data.AttachPolicy;
 import org.miaixz.lancia.option.data.Viewport;
 
 import lombok.AllArgsConstructor;
@@ -70,6 +71,14 @@ public class BrowserConnectOptions extends BrowserLaunchArgumentOptions {
     private Function<Target, Boolean> targetFilter;
 
     private Function<Target, Boolean> isPageTarget;
+    /**
+     * 目标挂载策略，为空时自动挂载所有目标
+     */
+    private AttachPolicy attachPolicy;
+    /**
+     * 精简模式，页面只在有监听器或者接口需要时开启 Network、Log、Performance 域，goTo 在没有开启 Network 时不返回响应
+     */
+    private boolean leanPages;
     /**
      * Timeout setting for individual protocol (CDP) calls.
      */
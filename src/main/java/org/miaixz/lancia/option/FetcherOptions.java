@@ -53,4 +53,26 @@ public class FetcherOptions {
 
     private String product;
 
+    /**
+     * 并行下载的分块数量
+     */
+    @lombok.Builder.Default
+    private int parallelism = 4;
+
+    /**
+     * 每个分块的大小，单位字节
+     */
+    @lombok.Builder.Default
+    private int chunkSize = 8 * 1024 * 1024;
+
+    /**
+     * 压缩包的 SHA-256 十六进制值，为空时只校验大小
+     */
+    private String checksum;
+
+    /**
+     * 使用内置的脚本下载，脚本会同时安装浏览器依赖的系统库
+     */
+    private boolean shell;
+
 }
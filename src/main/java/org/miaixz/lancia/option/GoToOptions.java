@@ -28,8 +28,11 @@
 package org.miaixz.lancia.option;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 import org.miaixz.lancia.Page;
+import org.miaixz.lancia.kernel.page.Response;
+import org.miaixz.lancia.option.data.NetworkIdleOptions;
 import org.miaixz.lancia.worker.enums.PuppeteerLifeCycle;
 
 import lombok.AllArgsConstructor;
@@ -69,5 +72,33 @@ public class GoToOptions {
      * 到哪个阶段才算导航完成，共有四个阶段 load - domcontentloaded - networkidle0 - networkidle2 -
      */
     private List<PuppeteerLifeCycle> waitUntil;
+    /**
+     * 设置后由客户端根据正在进行的请求判断网络空闲，waitUntil 中的 networkidle 和 networkidle2 使用该判断
+     */
+    private NetworkIdleOptions networkIdle;
+    /**
+     * 提前完成：导航提交后该选择器对应的元素出现即完成，不再等待 waitUntil
+     */
+    private String waitForSelector;
+    /**
+     * 提前完成：导航提交后该页面函数返回真值即完成
+     */
+    private String waitForFunction;
+    /**
+     * 提前完成：收到满足条件的响应即完成
+     */
+    private Predicate<Response> waitForResponse;
+    /**
+     * 提前完成：已加载完成的资源累计传输字节数达到该值即完成，0 表示不限制
+     */
+    private long maxBytes;
+    /**
+     * 提前完成：导航开始后经过该毫秒数即完成，和 timeout 不同，到达时不会报错，0 表示不限制
+     */
+    private int maxTime;
+    /**
+     * 提前完成后是否调用 Page.stopLoading 停止剩余资源的加载
+     */
+    private boolean stopLoading;
 
 }
@@ -129,5 +129,10 @@ public class PDFOptions {
      */
     @Builder.Default
     public boolean waitForFonts = true;
+    /**
+     * 读取pdf流时每次 IO.read 的字节数，越大往返次数越少
+     */
+    @Builder.Default
+    public int readSize = 1024 * 1024;
 
 }
@@ -44,6 +44,9 @@ import lombok.experimental.SuperBuilder;
 @AllArgsConstructor
 public class ScreenshotOptions {
 
+    /**
+     * 优化编码速度而不是输出大小，对应 Page.captureScreenshot 的 optimizeForSpeed
+     */
     boolean optimizeForSpeed;
 
     /**
@@ -67,7 +70,7 @@ public class ScreenshotOptions {
      */
     boolean fullPage;
     /**
-     * 隐藏默认的白色背景并允许捕获透明的屏幕截图。
+     * 隐藏默认的白色背景并允许捕获透明的屏幕截图，只对 png 和 webp 有效。
      */
     boolean omitBackground;
 
@@ -92,4 +95,15 @@ public class ScreenshotOptions {
     @Builder.Default
     boolean captureBeyondViewport = true;
 
+    /**
+     * 整页截图时每一块的高度(CSS像素)，大于0时启用分块截图，各块在Java中流式拼接，适合特别长的页面，只支持 png
+     */
+    int tileHeight;
+
+    /**
+     * 分块截图时同时进行中的截图请求数
+     */
+    @Builder.Default
+    int tileConcurrency = 2;
+
 }
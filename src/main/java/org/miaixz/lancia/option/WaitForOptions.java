@@ -29,6 +29,7 @@ package org.miaixz.lancia.option;
 
 import java.util.List;
 
+import org.miaixz.lancia.option.data.NetworkIdleOptions;
 import org.miaixz.lancia.worker.enums.PuppeteerLifeCycle;
 
 import lombok.AllArgsConstructor;
@@ -58,5 +59,9 @@ public class WaitForOptions {
      * 最长等待时间（以毫秒为单位）。传递 0 以禁用超时。 可以使用 Page.setDefaultTimeout() 或 Page.setDefaultNavigationTimeout() 方法更改默认值。
      */
     private Integer timeout;
+    /**
+     * 设置后由客户端根据正在进行的请求判断网络空闲，waitUntil 中的 networkidle 和 networkidle2 使用该判断
+     */
+    private NetworkIdleOptions networkIdle;
 
 }
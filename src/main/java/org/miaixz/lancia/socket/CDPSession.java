@@ -33,6 +33,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import org.miaixz.bus.core.lang.exception.InternalException;
@@ -117,6 +118,21 @@ public class CDPSession extends Emitter<CDPSessionEvent> {
         return this.connection.rawSend(this.callbacks, method, params, this.sessionId, timeout, isBlocking);
     }
 
+    /**
+     * 不阻塞地发送命令，返回结果的 future
+     *
+     * @param method 方法
+     * @param params 参数
+     * @return 结果
+     */
+    public CompletableFuture<JsonNode> sendAsync(String method, Map<String, Object> params) {
+        if (connection == null) {
+            return CompletableFuture.failedFuture(new InternalException("Protocol error (" + method
+                    + "): Session closed. Most likely the" + this.targetType + "has been closed."));
+        }
+        return this.connection.rawSendAsync(this.callbacks, method, params, this.sessionId, null);
+    }
+
     /**
      * 页面分离浏览器
      */
@@ -28,6 +28,8 @@
 package org.miaixz.lancia.socket;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
@@ -38,13 +40,15 @@ import org.miaixz.bus.core.xyz.StringKit;
 import org.miaixz.bus.logger.Logger;
 
 import com.fasterxml.jackson.databind.JsonNode;
+
+import io.reactivex.rxjava3.core.Single;
 /**
  * @author Kimi Liu
  * @since Java 17+
  */
 public class CallbackRegistry {
 
-    private final Map<Integer, Callback> callbacks = new HashMap<>();
+    private final Map<Integer, Callback> callbacks = new ConcurrentHashMap<>();
     private final AtomicInteger idGenerator = new AtomicInteger(0);
 
     public JsonNode create(String label, Integer timeout, Consumer<Integer> request, boolean isBlocking) {
@@ -81,6 +85,30 @@ public class CallbackRegistry {
         }
     }
 
+    /**
+     * 发送请求但不阻塞，结果通过 future 返回，便于把多个命令流水线式地发出去
+     *
+     * @param label   命令名称
+     * @param timeout 超时时间，0表示不超时
+     * @param request 发送请求
+     * @return 命令结果
+     */
+    public CompletableFuture<JsonNode> createAsync(String label, Integer timeout, Consumer<Integer> request) {
+        Callback callback = new Callback(idGenerator.incrementAndGet(), label);
+        this.callbacks.put(callback.id(), callback);
+        Single<JsonNode> single = timeout != null && timeout > 0
+                ? callback.getSubject().timeout(timeout, TimeUnit.MILLISECONDS)
+                : callback.getSubject();
+        CompletableFuture<JsonNode> future = single.toCompletionStage().toCompletableFuture();
+        future.whenComplete((value, e) -> this.callbacks.remove(callback.id()));
+        try {
+            request.accept(callback.id());
+        } catch (Exception e) {
+            callback.reject(e);
+        }
+        return future;
+    }
+
     public void reject(int id, String message, String originalMessage) {
         Callback callback = this.callbacks.get(id);
         if (callback != null) {
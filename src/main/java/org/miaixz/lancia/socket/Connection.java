@@ -30,6 +30,8 @@ package org.miaixz.lancia.socket;
 import static org.miaixz.lancia.Builder.createProtocolErrorMessage;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -98,6 +100,8 @@ public class Connection extends Emitter<CDPSessionEvent> implements Consumer<Str
                     put(event.getEventName(), EntryAddedEvent.class);
                 } else if (event.getEventName().equals("Page.fileChooserOpened")) {
                     put(event.getEventName(), FileChooserOpenedEvent.class);
+                } else if (event.getEventName().equals("Page.screencastFrame")) {
+                    put(event.getEventName(), ScreencastFrameEvent.class);
                 } else if (event.getEventName().equals("Debugger.scriptParsed")) {
                     put(event.getEventName(), ScriptParsedEvent.class);
                 } else if (event.getEventName().equals("Runtime.executionContextCreated")) {
@@ -147,10 +151,10 @@ public class Connection extends Emitter<CDPSessionEvent> implements Consumer<Str
     private final Transport transport;
     private final int delay;
     private final int timeout;
-    private final Map<String, CDPSession> sessions = new HashMap<>();
+    private final Map<String, CDPSession> sessions = new ConcurrentHashMap<>();
     private final CallbackRegistry callbacks = new CallbackRegistry();// 并发
     public boolean closed;
-    Set<String> manuallyAttached = new HashSet<>();
+    Set<String> manuallyAttached = ConcurrentHashMap.newKeySet();
     private List<String> events = null;
 
     public Connection(String url, Transport transport, int delay, int timeout) {
@@ -194,20 +198,43 @@ public class Connection extends Emitter<CDPSessionEvent> implements Consumer<Str
         if (timeout == null) {
             timeout = this.timeout;
         }
-        return callbacks.create(method, timeout, (id) -> {
-            ObjectNode objectNode = Builder.OBJECTMAPPER.createObjectNode();
-            objectNode.put(Builder.MESSAGE_METHOD_PROPERTY, method);
-            if (params != null) {
-                objectNode.set(Builder.MESSAGE_PARAMS_PROPERTY, Builder.OBJECTMAPPER.valueToTree(params));
-            }
-            objectNode.put(Builder.MESSAGE_ID_PROPERTY, id);
-            if (StringKit.isNotEmpty(sessionId)) {
-                objectNode.put(Builder.MESSAGE_SESSION_ID_PROPERTY, sessionId);
-            }
-            String stringifiedMessage = objectNode.toString();
-            Logger.trace("lancia:protocol:SEND ► {}", stringifiedMessage);
-            this.transport.send(stringifiedMessage);
-        }, isBlocking);
+        return callbacks.create(method, timeout, (id) -> this.transport.send(message(method, params, sessionId, id)),
+                isBlocking);
+    }
+
+    /**
+     * 不阻塞地发送消息，返回结果的 future
+     *
+     * @param method 方法
+     * @param params 参数
+     * @return 结果
+     */
+    public CompletableFuture<JsonNode> sendAsync(String method, Map<String, Object> params) {
+        return this.rawSendAsync(this.callbacks, method, params, null, null);
+    }
+
+    public CompletableFuture<JsonNode> rawSendAsync(CallbackRegistry callbacks, String method,
+            Map<String, Object> params, String sessionId, Integer timeout) {
+        if (this.closed) {
+            return CompletableFuture.failedFuture(new InternalException("Protocol error: Connection closed."));
+        }
+        return callbacks.createAsync(method, timeout == null ? this.timeout : timeout,
+                (id) -> this.transport.send(message(method, params, sessionId, id)));
+    }
+
+    private static String message(String method, Map<String, Object> params, String sessionId, int id) {
+        ObjectNode objectNode = Builder.OBJECTMAPPER.createObjectNode();
+        objectNode.put(Builder.MESSAGE_METHOD_PROPERTY, method);
+        if (params != null) {
+            objectNode.set(Builder.MESSAGE_PARAMS_PROPERTY, Builder.OBJECTMAPPER.valueToTree(params));
+        }
+        objectNode.put(Builder.MESSAGE_ID_PROPERTY, id);
+        if (StringKit.isNotEmpty(sessionId)) {
+            objectNode.put(Builder.MESSAGE_SESSION_ID_PROPERTY, sessionId);
+        }
+        String stringifiedMessage = objectNode.toString();
+        Logger.trace("lancia:protocol:SEND ► {}", stringifiedMessage);
+        return stringifiedMessage;
     }
 
     /**
@@ -41,7 +41,7 @@ public enum CDPSessionEvent {
 
     Runtime_exceptionThrown("Runtime.exceptionThrown"), Inspector_targetCrashed("Inspector.targetCrashed"),
     Performance_metrics("Performance.metrics"), Log_entryAdde("Log.entryAdded"),
-    Page_fileChooserOpened("Page.fileChooserOpened"),
+    Page_fileChooserOpened("Page.fileChooserOpened"), Page_screencastFrame("Page.screencastFrame"),
     // 先暂时放在这里吧
     Target_targetCreated("Target.targetCreated"), Target_targetDestroyed("Target.targetDestroyed"),
     Target_targetInfoChanged("Target.targetInfoChanged"), Target_attachedToTarget("Target.attachedToTarget"),
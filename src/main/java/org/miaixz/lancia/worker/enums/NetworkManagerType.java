@@ -31,7 +31,7 @@ package org.miaixz.lancia.worker.enums;
  * @since Java 17+
  */
 public enum NetworkManagerType {
-    Request("NetworkManager.Request"), RequestServedFromCache("NetworkManager.RequestServedFromCache"),
+    Request("NetworkManager.Request"), UserRequest("NetworkManager.UserRequest"), RequestServedFromCache("NetworkManager.RequestServedFromCache"),
     Response("NetworkManager.Response"), RequestFailed("NetworkManager.RequestFailed"),
     RequestFinished("NetworkManager.RequestFinished");
 